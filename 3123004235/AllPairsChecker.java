@@ -0,0 +1,324 @@
+// AllPairsChecker.java
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 全体互查：一组提交文档两两比较，找出相互抄袭的文档。
+ *
+ * 与逐对运行 {@link Main} 相比：
+ *   - 每篇文档只读取和预处理一次；
+ *   - 所有文档的 Winnowing 指纹放进同一张倒排表，只有共有指纹的文档对才作为候选，
+ *     出现在过多文档中的指纹（如作业模板、题目原文）不参与组合；
+ *     文档数较少时不做这项排除，否则几篇完全相同的提交反而会因为指纹“太常见”而互相看不见；
+ *   - 每个无序文档对只处理一次：矩阵模式两个方向共用一次余弦计算，
+ *     聚类模式只需判断是否达到阈值，第一个方向已达到阈值时不再计算另一个方向。
+ *
+ * 候选筛选会损失召回：只有共有一段不短于 W + K - 1（见 {@link Winnowing}）个连续词语的文档对才一定共有指纹，
+ * 逐句改写、没有这样一段原样内容的文档对不会被计算（矩阵中记为 -，也不会被聚类）。
+ *
+ * 用法：
+ *   --all-pairs [目录] [结果文件] [线程数]
+ *     输出相似度矩阵：第 i 行第 j 列为以第 i 篇为原文、第 j 篇为抄袭文本的相似度，非候选对记为 -
+ *   --all-pairs --clusters [阈值] [目录] [结果文件] [线程数]
+ *     任一方向相似度达到阈值的文档对连成一组（并查集），每行输出一组可疑文档
+ */
+public class AllPairsChecker {
+    private static final String RECALL_NOTE = "注意: 只比较共有一段不少于 " + (Winnowing.W + Winnowing.K - 1)
+            + " 个连续词语的文档对，逐句改写的文档对不会被比较（矩阵中记为 -）";
+    private static final String USAGE =
+            "使用方法: java -jar main.jar --all-pairs [目录] [结果文件] [线程数]\n"
+            + "      或: java -jar main.jar --all-pairs --clusters [阈值] [目录] [结果文件] [线程数]\n"
+            + RECALL_NOTE;
+    // 指纹出现的文档比例超过该值时视为公共内容，不用于生成候选对
+    private static final double MAX_FINGERPRINT_DOCUMENT_RATIO = 0.5;
+    // 出现在不超过该篇数的文档中的指纹总是用于生成候选对，文档数较少时比例限制不起作用
+    private static final int MIN_COMMON_FINGERPRINT_DOCUMENTS = 10;
+
+    private final int threads;
+    private final List<String> names;
+    private final Document[] documents;
+
+    /**
+     * 读取并预处理所有文档
+     * @param paths 文档路径
+     * @param threads 线程数
+     * @throws IOException 读取失败时抛出异常
+     */
+    public AllPairsChecker(List<String> paths, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("线程数必须大于0");
+        }
+        this.threads = threads;
+        this.names = new ArrayList<>(paths);
+        this.documents = new Document[paths.size()];
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Document>> futures = new ArrayList<>();
+            for (String path : paths) {
+                futures.add(pool.submit(() -> Document.of(FileProcessor.readFile(path))));
+            }
+            for (int i = 0; i < documents.length; i++) {
+                documents[i] = await(futures.get(i));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 命令行入口（参数不含开头的 --all-pairs）
+     * @param args 命令行参数
+     * @throws IOException 读写失败时抛出异常
+     */
+    public static void run(String[] args) throws IOException {
+        boolean clusters = args.length > 0 && "--clusters".equals(args[0]);
+        int fixedArgs = clusters ? 4 : 2;
+        if (args.length != fixedArgs && args.length != fixedArgs + 1) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length == fixedArgs + 1) {
+            try {
+                threads = Integer.parseInt(args[fixedArgs]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("线程数格式错误: " + args[fixedArgs]);
+            }
+        }
+
+        if (clusters) {
+            double threshold;
+            try {
+                threshold = Double.parseDouble(args[1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("阈值格式错误: " + args[1]);
+            }
+            AllPairsChecker checker = new AllPairsChecker(BatchChecker.listFiles(args[2]), threads);
+            List<List<String>> groups = checker.clusters(threshold);
+            writeClusters(groups, args[3]);
+            System.out.println("全体互查完成，共 " + groups.size() + " 组可疑文档");
+        } else {
+            AllPairsChecker checker = new AllPairsChecker(BatchChecker.listFiles(args[0]), threads);
+            writeMatrix(checker.names, checker.matrix(), args[1]);
+            System.out.println("全体互查完成，共 " + checker.documents.length + " 篇文档");
+        }
+        System.out.println(RECALL_NOTE);
+    }
+
+    /**
+     * 通过共有指纹筛选候选文档对
+     * @return 候选对 {i, j}，i < j
+     */
+    List<int[]> candidatePairs() {
+        int total = 0;
+        for (Document document : documents) {
+            total += document.fingerprints().length;
+        }
+        // 指纹的高位和文档编号拼成一个 long，排序后同一指纹的文档连续出现；
+        // 截断指纹只会多出一些候选对，由之后的精确计算核实
+        int ownerBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(documents.length - 1));
+        long ownerMask = (1L << ownerBits) - 1;
+        long[] table = new long[total];
+        int size = 0;
+        for (int d = 0; d < documents.length; d++) {
+            for (long fingerprint : documents[d].fingerprints()) {
+                table[size++] = (fingerprint & ~ownerMask) | d;
+            }
+        }
+        Arrays.sort(table);
+        // 同一文档的不同指纹截断后可能相同，去重
+        size = 0;
+        for (int k = 0; k < total; k++) {
+            if (size == 0 || table[k] != table[size - 1]) {
+                table[size++] = table[k];
+            }
+        }
+
+        int maxDocuments = Math.max(MIN_COMMON_FINGERPRINT_DOCUMENTS,
+                (int) (documents.length * MAX_FINGERPRINT_DOCUMENT_RATIO));
+        // 候选对 (i << 32 | j)，最后排序去重
+        long[] packed = new long[16];
+        int count = 0;
+        for (int start = 0; start < size; ) {
+            long fingerprint = table[start] & ~ownerMask;
+            int end = start;
+            while (end < size && (table[end] & ~ownerMask) == fingerprint) {
+                end++;
+            }
+            if (end - start <= maxDocuments) {
+                for (int a = start; a < end; a++) {
+                    for (int b = a + 1; b < end; b++) {
+                        if (count == packed.length) {
+                            packed = Arrays.copyOf(packed, packed.length * 2);
+                        }
+                        packed[count++] = (table[a] & ownerMask) << 32 | (table[b] & ownerMask);
+                    }
+                }
+            }
+            start = end;
+        }
+        Arrays.sort(packed, 0, count);
+
+        List<int[]> pairs = new ArrayList<>();
+        for (int k = 0; k < count; k++) {
+            if (k == 0 || packed[k] != packed[k - 1]) {
+                pairs.add(new int[]{(int) (packed[k] >>> 32), (int) packed[k]});
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * 计算相似度矩阵
+     * @return matrix[i][j] 为以第 i 篇为原文、第 j 篇为抄袭文本的相似度，非候选对为 NaN
+     * @throws IOException 计算被中断时抛出异常
+     */
+    public double[][] matrix() throws IOException {
+        double[][] matrix = new double[documents.length][documents.length];
+        for (double[] row : matrix) {
+            Arrays.fill(row, Double.NaN);
+        }
+        List<int[]> pairs = candidatePairs();
+        forEachPair(pairs, pair -> {
+            double[] both = SimilarityCalculator.calculateBothDirections(documents[pair[0]], documents[pair[1]]);
+            // 每个无序对只由一个任务写入，互不冲突
+            matrix[pair[0]][pair[1]] = both[0];
+            matrix[pair[1]][pair[0]] = both[1];
+        });
+        return matrix;
+    }
+
+    /**
+     * 找出可疑文档组：任一方向相似度达到阈值的文档对连成一组
+     * @param threshold 阈值（0~1）
+     * @return 每组的文档路径，组内和组间按文档顺序排列，只含两篇及以上的组
+     * @throws IOException 计算被中断时抛出异常
+     */
+    public List<List<String>> clusters(double threshold) throws IOException {
+        List<int[]> pairs = candidatePairs();
+        boolean[] suspicious = new boolean[pairs.size()];
+        List<int[]> indexed = new ArrayList<>(pairs.size());
+        for (int p = 0; p < pairs.size(); p++) {
+            indexed.add(new int[]{pairs.get(p)[0], pairs.get(p)[1], p});
+        }
+        forEachPair(indexed, pair -> {
+            Document first = documents[pair[0]];
+            Document second = documents[pair[1]];
+            suspicious[pair[2]] = SimilarityCalculator.checkThreshold(first, second, threshold).isAbove()
+                    || SimilarityCalculator.checkThreshold(second, first, threshold).isAbove();
+        });
+
+        int[] parent = new int[documents.length];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        for (int p = 0; p < pairs.size(); p++) {
+            if (suspicious[p]) {
+                int a = find(parent, pairs.get(p)[0]);
+                int b = find(parent, pairs.get(p)[1]);
+                // 以下标较小者为根，使组按首个成员的顺序排列
+                parent[Math.max(a, b)] = Math.min(a, b);
+            }
+        }
+
+        List<List<String>> groups = new ArrayList<>();
+        int[] groupOf = new int[documents.length];
+        Arrays.fill(groupOf, -1);
+        for (int i = 0; i < documents.length; i++) {
+            int root = find(parent, i);
+            if (groupOf[root] < 0) {
+                groupOf[root] = groups.size();
+                groups.add(new ArrayList<>());
+            }
+            groups.get(groupOf[root]).add(names.get(i));
+        }
+        groups.removeIf(group -> group.size() < 2);
+        return groups;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private interface PairTask {
+        void run(int[] pair);
+    }
+
+    // 候选对按固定步长分给各线程，各任务只写入自己负责的位置
+    private void forEachPair(List<int[]> pairs, PairTask task) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                futures.add(pool.submit(() -> {
+                    for (int p = first; p < pairs.size(); p += threads) {
+                        task.run(pairs.get(p));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                await(future);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("全体互查被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("全体互查失败: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static void writeMatrix(List<String> names, double[][] matrix, String outputPath) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8)) {
+            writer.write("原文\\抄袭");
+            for (String name : names) {
+                writer.write("\t" + name);
+            }
+            writer.newLine();
+            for (int i = 0; i < matrix.length; i++) {
+                writer.write(names.get(i));
+                for (int j = 0; j < matrix.length; j++) {
+                    writer.write("\t");
+                    writer.write(Double.isNaN(matrix[i][j]) ? "-" : String.format("%.2f%%", matrix[i][j] * 100));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void writeClusters(List<List<String>> groups, String outputPath) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8)) {
+            for (List<String> group : groups) {
+                writer.write(String.join("\t", group));
+                writer.newLine();
+            }
+        }
+    }
+}
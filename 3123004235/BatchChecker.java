@@ -0,0 +1,368 @@
+// BatchChecker.java
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 批量查重：在同一个 JVM 内对大量（原文, 抄袭文本）文件对进行查重，
+ * 避免每对文件都重复启动 JVM、加载类和构建同义词表。
+ *
+ * 用法：
+ *   --batch [清单文件] [结果文件] [线程数]
+ *   --batch --dirs [原文文件或目录] [抄袭文件或目录] [结果文件] [线程数]
+ * 参数前可加 --algorithm [lcs-cosine|winnowing] 选择相似度算法，默认 lcs-cosine。
+ *
+ * 清单文件每行一对路径，以制表符分隔：原文路径\t抄袭文件路径，以 # 开头的行为注释。
+ * 目录模式下对两侧文件做两两组合，每个文件只预处理一次。结果按完成顺序逐行写入：原文路径\t抄袭文件路径\t结果。
+ */
+public class BatchChecker {
+    private static final String USAGE =
+            "使用方法: java -jar main.jar --batch [--algorithm 算法] [清单文件] [结果文件] [线程数]\n"
+            + "      或: java -jar main.jar --batch [--algorithm 算法] --dirs [原文文件或目录] [抄袭文件或目录] [结果文件] [线程数]";
+
+    private final int threads;
+    private final SimilarityAlgorithm algorithm;
+
+    public BatchChecker(int threads) {
+        this(threads, SimilarityAlgorithm.LCS_COSINE);
+    }
+
+    public BatchChecker(int threads, SimilarityAlgorithm algorithm) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("线程数必须大于0");
+        }
+        if (algorithm == null) {
+            throw new IllegalArgumentException("相似度算法不能为空");
+        }
+        this.threads = threads;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * 命令行入口（参数不含开头的 --batch）
+     * @param args 命令行参数
+     * @throws IOException 读写失败时抛出异常
+     */
+    public static void run(String[] args) throws IOException {
+        SimilarityAlgorithm algorithm = SimilarityAlgorithm.LCS_COSINE;
+        if (args.length >= 2 && "--algorithm".equals(args[0])) {
+            algorithm = SimilarityAlgorithm.parse(args[1]);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+
+        boolean dirMode = args.length > 0 && "--dirs".equals(args[0]);
+        int fixedArgs = dirMode ? 4 : 2;
+        if (args.length != fixedArgs && args.length != fixedArgs + 1) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (args.length == fixedArgs + 1) {
+            try {
+                threads = Integer.parseInt(args[fixedArgs]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("线程数格式错误: " + args[fixedArgs]);
+            }
+        }
+
+        BatchChecker checker = new BatchChecker(threads, algorithm);
+        int count;
+        if (dirMode) {
+            count = checker.checkDirectories(args[1], args[2], args[3]);
+        } else {
+            count = checker.checkManifest(args[0], args[1]);
+        }
+        System.out.println("批量查重完成，共处理 " + count + " 对文件");
+        // 开启了 -Dplagiarism.metrics 时输出各阶段统计
+        if (PipelineMetrics.isEnabled()) {
+            System.err.print(PipelineMetrics.snapshot());
+        }
+    }
+
+    /**
+     * 按清单文件批量查重
+     * @param manifestPath 清单文件路径
+     * @param outputPath 结果文件路径
+     * @return 处理的文件对数
+     * @throws IOException 读写失败时抛出异常
+     */
+    public int checkManifest(String manifestPath, String outputPath) throws IOException {
+        if (manifestPath == null || manifestPath.trim().isEmpty()) {
+            throw new IllegalArgumentException("清单文件路径不能为空");
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(manifestPath), StandardCharsets.UTF_8);
+             BatchRun batch = new BatchRun(outputPath, false)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = trimmed.split("\t");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("清单第 " + lineNumber + " 行格式错误，应为: 原文路径\\t抄袭文件路径");
+                }
+                batch.submit(parts[0].trim(), parts[1].trim());
+            }
+            return batch.finish();
+        }
+    }
+
+    /**
+     * 对两个目录（或单个文件）中的文件两两组合进行查重
+     * @param originalPath 原文文件或目录
+     * @param plagiarizedPath 抄袭文件或目录
+     * @param outputPath 结果文件路径
+     * @return 处理的文件对数
+     * @throws IOException 读写失败时抛出异常
+     */
+    public int checkDirectories(String originalPath, String plagiarizedPath, String outputPath) throws IOException {
+        List<String> originals = listFiles(originalPath);
+        List<String> plagiarized = listFiles(plagiarizedPath);
+
+        try (BatchRun batch = new BatchRun(outputPath, true)) {
+            // 每个原文被所有抄袭文件使用一次，每个抄袭文件被所有原文使用一次，用完即从缓存中移除
+            for (String orig : originals) {
+                batch.expectUses(orig, plagiarized.size());
+            }
+            for (String plag : plagiarized) {
+                batch.expectUses(plag, originals.size());
+            }
+            for (String plag : plagiarized) {
+                for (String orig : originals) {
+                    batch.submit(orig, plag);
+                }
+            }
+            return batch.finish();
+        }
+    }
+
+    /**
+     * 列出路径下的文件：目录则返回其中的文件（按路径排序，不递归），文件则返回自身
+     */
+    static List<String> listFiles(String path) throws IOException {
+        if (path == null || path.trim().isEmpty()) {
+            throw new IllegalArgumentException("文件路径不能为空");
+        }
+        File file = new File(path);
+        if (!file.exists()) {
+            throw new java.nio.file.NoSuchFileException("文件不存在: " + path);
+        }
+
+        List<String> files = new ArrayList<>();
+        if (file.isDirectory()) {
+            File[] children = file.listFiles(File::isFile);
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    files.add(child.getPath());
+                }
+            }
+        } else {
+            files.add(file.getPath());
+        }
+        return files;
+    }
+
+    /**
+     * 一次批量运行：固定大小的工作线程池，按完成顺序把结果流式写入同一个文件。
+     * 提交端受信号量限制，清单再大也不会一次性堆积所有任务。
+     * 目录模式下每个文件会被反复比较，因此缓存其预处理结果和内容摘要；每个文件记录剩余的比较次数，
+     * 最后一次比较完成后即从缓存中移除，缓存中只保留仍要使用的文件。
+     * 结果缓存命中时只读取文件字节计算摘要，不解码、不预处理。
+     * 写入结果失败时不再提交新任务，{@link #finish()} 抛出该异常。
+     */
+    private class BatchRun implements AutoCloseable {
+        private final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        private final Semaphore inFlight = new Semaphore(threads * 4);
+        private final AtomicInteger processed = new AtomicInteger();
+        private final BufferedWriter writer;
+        private final Map<String, Document> documents;
+        private final Map<String, byte[]> digests;
+        private final Map<String, AtomicInteger> remainingUses;
+        private final AtomicReference<IOException> writeFailure = new AtomicReference<>();
+        private final ResultCache cache = ResultCache.shared();
+
+        BatchRun(String outputPath, boolean cacheDocuments) throws IOException {
+            if (outputPath == null || outputPath.trim().isEmpty()) {
+                throw new IllegalArgumentException("文件路径不能为空");
+            }
+            this.writer = Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8);
+            this.documents = cacheDocuments ? new ConcurrentHashMap<>() : null;
+            this.digests = cacheDocuments ? new ConcurrentHashMap<>() : null;
+            this.remainingUses = cacheDocuments ? new ConcurrentHashMap<>() : null;
+        }
+
+        void expectUses(String path, int uses) {
+            remainingUses.computeIfAbsent(path, key -> new AtomicInteger()).addAndGet(uses);
+        }
+
+        // 文件的最后一次比较完成后移除其缓存
+        private void release(String path) {
+            AtomicInteger uses = remainingUses.get(path);
+            if (uses != null && uses.decrementAndGet() == 0) {
+                documents.remove(path);
+                digests.remove(path);
+            }
+        }
+
+        void submit(String originalPath, String plagiarizedPath) throws IOException {
+            inFlight.acquireUninterruptibly();
+            IOException failure = writeFailure.get();
+            if (failure != null) {
+                inFlight.release();
+                throw failure;
+            }
+            try {
+                pool.execute(() -> {
+                    try {
+                        write(originalPath, plagiarizedPath, checkPair(originalPath, plagiarizedPath));
+                    } finally {
+                        if (remainingUses != null) {
+                            release(originalPath);
+                            release(plagiarizedPath);
+                        }
+                        inFlight.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        private String checkPair(String originalPath, String plagiarizedPath) {
+            StageEvent event = PipelineMetrics.begin();
+            try {
+                double similarity = similarity(originalPath, plagiarizedPath);
+                PipelineMetrics.end(event, PipelineMetrics.Stage.CHECK, 0, 0, 0, 0);
+                return String.format("%.2f%%", similarity * 100);
+            } catch (UncheckedIOException e) {
+                return "错误: " + e.getCause().getMessage();
+            } catch (Exception e) {
+                return "错误: " + e.getMessage();
+            }
+        }
+
+        private double similarity(String originalPath, String plagiarizedPath) throws IOException {
+            if (!cache.isEnabled()) {
+                return SimilarityCalculator.calculateSimilarity(
+                        document(originalPath), document(plagiarizedPath), algorithm);
+            }
+
+            if (documents != null) {
+                String key = ResultCache.key(digest(originalPath), digest(plagiarizedPath), algorithm);
+                Double cached = cache.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+                double similarity = SimilarityCalculator.calculateSimilarity(
+                        document(originalPath), document(plagiarizedPath), algorithm);
+                cache.put(key, similarity);
+                return similarity;
+            }
+
+            byte[] original = FileProcessor.readBytes(originalPath);
+            byte[] plagiarized = FileProcessor.readBytes(plagiarizedPath);
+            String key = ResultCache.key(ResultCache.digest(original), ResultCache.digest(plagiarized), algorithm);
+            Double cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            double similarity = SimilarityCalculator.calculateSimilarity(
+                    Document.of(FileProcessor.decode(original)),
+                    Document.of(FileProcessor.decode(plagiarized)), algorithm);
+            cache.put(key, similarity);
+            return similarity;
+        }
+
+        // 读取文件不放在 computeIfAbsent 中，避免读文件时阻塞映射表中的其他键；并发时可能重复计算，以先放入的为准
+        private byte[] digest(String path) throws IOException {
+            byte[] digest = digests.get(path);
+            if (digest == null) {
+                digest = ResultCache.digest(FileProcessor.readBytes(path));
+                byte[] existing = digests.putIfAbsent(path, digest);
+                if (existing != null) {
+                    digest = existing;
+                }
+            }
+            return digest;
+        }
+
+        private Document document(String path) throws IOException {
+            if (documents == null) {
+                return Document.of(FileProcessor.readFile(path));
+            }
+            Document document = documents.get(path);
+            if (document == null) {
+                document = Document.of(FileProcessor.readFile(path));
+                Document existing = documents.putIfAbsent(path, document);
+                if (existing != null) {
+                    document = existing;
+                }
+            }
+            return document;
+        }
+
+        private void write(String originalPath, String plagiarizedPath, String result) {
+            synchronized (writer) {
+                if (writeFailure.get() != null) {
+                    return;
+                }
+                try {
+                    writer.write(originalPath + "\t" + plagiarizedPath + "\t" + result);
+                    writer.newLine();
+                } catch (IOException e) {
+                    // 工作线程中的异常会被线程池吞掉，记录下来由提交端和 finish 抛出
+                    writeFailure.compareAndSet(null, new IOException("写入结果失败: " + e.getMessage(), e));
+                    return;
+                }
+            }
+            processed.incrementAndGet();
+        }
+
+        int finish() throws IOException {
+            pool.shutdown();
+            try {
+                while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                    // 继续等待剩余任务完成
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("批量查重被中断", e);
+            }
+            IOException failure = writeFailure.get();
+            if (failure != null) {
+                throw failure;
+            }
+            writer.flush();
+            return processed.get();
+        }
+
+        @Override
+        public void close() throws IOException {
+            pool.shutdownNow();
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+// BitParallelLcs.java
+import java.util.Arrays;
+
+/**
+ * 位并行最长公共子序列（LCS）长度计算（Allison-Dix / Hyyrö 算法）。
+ *
+ * 以一个序列为模式串，为其中每个不同的词语预先计算匹配位掩码，
+ * 然后逐个扫描另一序列，每一步用 ⌈m/64⌉ 个 long 的加法和位运算更新状态：
+ *   V' = (V + (V & M)) | (V & ~M)
+ * 扫描结束后 V 中前 m 位里 0 的个数即为 LCS 长度。结果与动态规划完全一致，
+ * 但时间为 O(⌈m/64⌉·n)，空间只有 O(⌈m/64⌉·模式串不同词语数)，不需要二维动态规划表。
+ *
+ * 同一模式串可以与多个文本反复比较；实例内部复用状态数组，不是线程安全的。
+ */
+final class BitParallelLcs {
+    private final int length;
+    private final int words;
+    private final long lastWordMask;
+    // 开放寻址哈希表：词语编号 -> 掩码行号
+    private final int[] keys;
+    private final int[] rows;
+    private final long[] masks;
+    private final long[] state;
+
+    /**
+     * @param pattern 模式串（词语编号）
+     */
+    BitParallelLcs(int[] pattern) {
+        this.length = pattern.length;
+        this.words = Math.max(1, (length + 63) >>> 6);
+        int tail = length & 63;
+        this.lastWordMask = tail == 0 ? -1L : (1L << tail) - 1;
+
+        int capacity = Integer.highestOneBit(Math.max(2, pattern.length) * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.rows = new int[capacity];
+        Arrays.fill(rows, -1);
+
+        // 掩码表只为模式串中出现的不同词语分配行
+        int[] patternRows = new int[pattern.length];
+        int distinct = 0;
+        for (int i = 0; i < pattern.length; i++) {
+            int slot = slotFor(pattern[i]);
+            if (rows[slot] < 0) {
+                keys[slot] = pattern[i];
+                rows[slot] = distinct++;
+            }
+            patternRows[i] = rows[slot];
+        }
+        this.masks = new long[distinct * words];
+        for (int i = 0; i < pattern.length; i++) {
+            masks[patternRows[i] * words + (i >>> 6)] |= 1L << (i & 63);
+        }
+        this.state = new long[words];
+    }
+
+    /**
+     * 计算两个序列的 LCS 长度，以较短者作为模式串
+     * @param seq1 序列1
+     * @param seq2 序列2
+     * @return LCS 长度
+     */
+    static int lcsLength(int[] seq1, int[] seq2) {
+        if (seq1.length == 0 || seq2.length == 0) {
+            return 0;
+        }
+        return seq1.length <= seq2.length
+                ? new BitParallelLcs(seq1).lcsLength(seq2)
+                : new BitParallelLcs(seq2).lcsLength(seq1);
+    }
+
+    /**
+     * 计算模式串与文本的 LCS 长度
+     * @param text 文本（词语编号）
+     * @return LCS 长度
+     */
+    int lcsLength(int[] text) {
+        if (length == 0 || text.length == 0) {
+            return 0;
+        }
+
+        long[] v = state;
+        Arrays.fill(v, -1L);
+        for (int token : text) {
+            int row = find(token);
+            if (row < 0) {
+                // 掩码全为 0 时 V 不变
+                continue;
+            }
+            int base = row * words;
+            long carry = 0;
+            for (int k = 0; k < words; k++) {
+                long old = v[k];
+                long match = old & masks[base + k];
+                long sum = old + match + carry;
+                carry = ((old & match) | ((old | match) & ~sum)) >>> 63;
+                v[k] = sum | (old - match);
+            }
+        }
+
+        int ones = 0;
+        for (int k = 0; k < words - 1; k++) {
+            ones += Long.bitCount(v[k]);
+        }
+        ones += Long.bitCount(v[words - 1] & lastWordMask);
+        return length - ones;
+    }
+
+    private int find(int token) {
+        int mask = keys.length - 1;
+        int slot = mix(token) & mask;
+        while (rows[slot] >= 0) {
+            if (keys[slot] == token) {
+                return rows[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int slotFor(int token) {
+        int mask = keys.length - 1;
+        int slot = mix(token) & mask;
+        while (rows[slot] >= 0 && keys[slot] != token) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int token) {
+        int h = token * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
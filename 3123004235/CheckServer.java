@@ -0,0 +1,463 @@
+// CheckServer.java
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 常驻查重服务：基于 JDK 自带的 HTTP 服务器，进程只启动一次，
+ * 省去每次查重启动 JVM、加载类和构建词典的开销，JIT 编译结果也在请求之间共享。
+ *
+ * 每个请求由一个虚拟线程处理（JDK 21 之前的运行时退回到按需创建的线程池）。
+ * 同时处理的请求数受信号量限制，超出时直接返回 503，由调用方稍后重试。
+ * 参考文档在启动时读取并预处理一次，之后所有请求共用；参考文档变化后可通过 /reload 重新读取
+ * （以目录启动时重新列出目录，新增的文件也会加载），读取完成后整体替换，正在处理的请求继续使用替换前的一组。
+ * 两段文本的比较结果按内容缓存（见 {@link ResultCache}），重复提交时不再预处理和计算。
+ *
+ * 用法：
+ *   --serve [端口] [参考文件或目录] [最大并发数]
+ * 服务只监听本机地址。接口（参数以 application/x-www-form-urlencoded 提交，也可放在查询串中）：
+ *   GET  /health                             服务状态
+ *   GET  /metrics                            各阶段统计快照（需 -Dplagiarism.metrics=true）
+ *   POST /check  original=..&plagiarized=..  比较两段文本
+ *   POST /check  reference=..&plagiarized=.. 与指定参考文档（文件名）比较
+ *   POST /check  top=K&plagiarized=..        在全部参考文档中找出最相似的 K 篇
+ *   POST /reload                             重新读取参考文档，失败时继续使用原来的参考文档
+ * 返回 JSON，包含相似度和各阶段耗时（毫秒）。
+ */
+public class CheckServer {
+    private static final String USAGE =
+            "使用方法: java -jar main.jar --serve [端口] [参考文件或目录] [最大并发数]";
+    // 请求体大小上限，可通过 -Dplagiarism.server.maxBodyBytes 调整
+    private static final int MAX_BODY_BYTES = Integer.getInteger("plagiarism.server.maxBodyBytes", 16 * 1024 * 1024);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final ResultCache cache = ResultCache.shared();
+    private final ReferenceSource referenceSource;
+    // 当前的参考文档，重新加载时整体替换
+    private volatile References references;
+
+    /**
+     * 读取并预处理参考文档，创建服务（尚未开始监听请求）
+     * @param port 端口，0 表示由系统分配
+     * @param referencePaths 参考文档路径，以文件名作为参考文档名称，重新加载时读取同样的文件
+     * @param maxInFlight 同时处理的最大请求数
+     * @throws IOException 读取参考文档或绑定端口失败时抛出异常
+     */
+    public CheckServer(int port, List<String> referencePaths, int maxInFlight) throws IOException {
+        this(port, () -> referencePaths, maxInFlight);
+    }
+
+    /**
+     * 读取并预处理参考文档，创建服务（尚未开始监听请求）
+     * @param port 端口，0 表示由系统分配
+     * @param referencePath 参考文件或目录，重新加载时重新列出目录
+     * @param maxInFlight 同时处理的最大请求数
+     * @throws IOException 读取参考文档或绑定端口失败时抛出异常
+     */
+    public CheckServer(int port, String referencePath, int maxInFlight) throws IOException {
+        this(port, () -> BatchChecker.listFiles(referencePath), maxInFlight);
+    }
+
+    private CheckServer(int port, ReferenceSource referenceSource, int maxInFlight) throws IOException {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("端口超出范围: " + port);
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("最大并发数必须大于0");
+        }
+        this.referenceSource = referenceSource;
+        this.references = new References(referenceSource.list());
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/check", this::handleCheck);
+        server.createContext("/metrics", this::handleMetrics);
+        server.createContext("/reload", this::handleReload);
+    }
+
+    private interface ReferenceSource {
+        List<String> list() throws IOException;
+    }
+
+    /**
+     * 一组预处理好的参考文档、内容摘要和检索索引，创建后不再修改
+     */
+    private static final class References {
+        private final Map<String, Document> documents = new LinkedHashMap<>();
+        private final Map<String, byte[]> digests = new HashMap<>();
+        private final CorpusSearcher searcher;
+
+        References(List<String> paths) throws IOException {
+            for (String path : paths) {
+                String name = Paths.get(path).getFileName().toString();
+                byte[] content = FileProcessor.readBytes(path);
+                if (documents.put(name, Document.of(FileProcessor.decode(content))) != null) {
+                    throw new IllegalArgumentException("参考文档重名: " + name);
+                }
+                digests.put(name, ResultCache.digest(content));
+            }
+            this.searcher = CorpusSearcher.of(new ArrayList<>(documents.keySet()), new ArrayList<>(documents.values()));
+        }
+    }
+
+    /**
+     * 重新读取参考文档，读取完成后整体替换
+     * @return 参考文档数
+     * @throws IOException 读取失败时抛出异常，此时继续使用原来的参考文档
+     */
+    public synchronized int reload() throws IOException {
+        References loaded = new References(referenceSource.list());
+        references = loaded;
+        return loaded.documents.size();
+    }
+
+    /**
+     * 命令行入口（参数不含开头的 --serve）
+     * @param args 命令行参数
+     * @throws IOException 启动失败时抛出异常
+     */
+    public static void run(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        int port = parseInt(args[0], "端口格式错误: ");
+        int maxInFlight = args.length == 3
+                ? parseInt(args[2], "最大并发数格式错误: ")
+                : Runtime.getRuntime().availableProcessors() * 4;
+
+        CheckServer checkServer = args.length >= 2
+                ? new CheckServer(port, args[1], maxInFlight)
+                : new CheckServer(port, new ArrayList<String>(), maxInFlight);
+        Runtime.getRuntime().addShutdownHook(new Thread(checkServer::stop));
+        checkServer.start();
+        System.out.println("查重服务已启动: http://127.0.0.1:" + checkServer.getPort()
+                + "/，参考文档 " + checkServer.references.documents.size() + " 篇");
+    }
+
+    private static int parseInt(String value, String message) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(message + value);
+        }
+    }
+
+    /**
+     * 每个请求一个虚拟线程；运行时不支持虚拟线程时（JDK 21 之前）退回到按需创建的线程池。
+     * 通过反射调用，使代码在旧版本 JDK 上也能编译运行。
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * 停止服务：不再接受新请求，等待正在处理的请求完成（最多 5 秒）
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return 实际监听的端口
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, 200, "{\"status\":\"ok\",\"references\":" + references.documents.size()
+                    + ",\"inFlight\":" + (maxInFlight - inFlight.availablePermits())
+                    + ",\"maxInFlight\":" + maxInFlight + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // 各阶段统计快照，制表符分隔的文本，需要以 -Dplagiarism.metrics=true 启动
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            byte[] bytes = PipelineMetrics.snapshot().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleCheck(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, error("只支持 POST 请求"));
+                return;
+            }
+            // 超出并发上限时立即拒绝，而不是排队等待，避免请求堆积拖垮服务
+            if (!inFlight.tryAcquire()) {
+                // 仍需读完请求体，否则客户端还在发送时连接就被重置，收不到 503
+                discard(exchange.getRequestBody());
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 503, error("服务繁忙，请稍后重试"));
+                return;
+            }
+            StageEvent event = PipelineMetrics.begin();
+            try {
+                check(exchange);
+            } finally {
+                inFlight.release();
+                PipelineMetrics.end(event, PipelineMetrics.Stage.CHECK, 0, 0, 0, 0);
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, "查重失败: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleReload(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, error("只支持 POST 请求"));
+                return;
+            }
+            discard(exchange.getRequestBody());
+            int count = reload();
+            send(exchange, 200, "{\"status\":\"ok\",\"references\":" + count + "}");
+        } catch (IOException | RuntimeException e) {
+            sendError(exchange, 500, "重新加载参考文档失败，继续使用原来的参考文档: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void check(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        // 整个请求使用同一组参考文档，不受期间重新加载的影响
+        References references = this.references;
+        byte[] body = readBody(exchange.getRequestBody());
+        if (body == null) {
+            send(exchange, 413, error("请求体超过 " + MAX_BODY_BYTES + " 字节"));
+            return;
+        }
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        parseForm(new String(body, StandardCharsets.UTF_8), params);
+
+        String plagiarizedText = params.get("plagiarized");
+        String originalText = params.get("original");
+        String referenceName = params.get("reference");
+        String top = params.get("top");
+        int modes = (originalText != null ? 1 : 0) + (referenceName != null ? 1 : 0) + (top != null ? 1 : 0);
+        if (plagiarizedText == null || modes != 1) {
+            send(exchange, 400, error("参数错误，应提供 plagiarized 以及 original、reference、top 三者之一"));
+            return;
+        }
+        Document original = null;
+        byte[] originalDigest = null;
+        if (referenceName != null) {
+            original = references.documents.get(referenceName);
+            if (original == null) {
+                send(exchange, 404, error("参考文档不存在: " + referenceName));
+                return;
+            }
+            originalDigest = references.digests.get(referenceName);
+        } else if (originalText != null) {
+            originalDigest = ResultCache.digest(originalText.getBytes(StandardCharsets.UTF_8));
+        }
+        int k = 0;
+        if (top != null) {
+            try {
+                k = Integer.parseInt(top);
+            } catch (NumberFormatException e) {
+                k = -1;
+            }
+            if (k <= 0) {
+                send(exchange, 400, error("top 必须为正整数: " + top));
+                return;
+            }
+        }
+        // 比较两段文本时先查结果缓存，命中则跳过预处理和计算
+        String cacheKey = null;
+        Double cached = null;
+        if (originalDigest != null && cache.isEnabled()) {
+            cacheKey = ResultCache.key(originalDigest,
+                    ResultCache.digest(plagiarizedText.getBytes(StandardCharsets.UTF_8)), SimilarityAlgorithm.LCS_COSINE);
+            cached = cache.get(cacheKey);
+        }
+        long parsed = System.nanoTime();
+
+        Document plagiarized = null;
+        if (cached == null) {
+            plagiarized = Document.of(plagiarizedText);
+            if (originalText != null) {
+                original = Document.of(originalText);
+            }
+        }
+        long preprocessed = System.nanoTime();
+
+        StringBuilder json = new StringBuilder("{");
+        if (originalDigest != null) {
+            double similarity;
+            if (cached != null) {
+                similarity = cached;
+            } else {
+                similarity = SimilarityCalculator.calculateSimilarity(original, plagiarized);
+                if (cacheKey != null) {
+                    cache.put(cacheKey, similarity);
+                }
+            }
+            json.append("\"similarity\":").append(String.format(Locale.ROOT, "%.6f", similarity))
+                    .append(",\"result\":\"").append(String.format("%.2f%%", similarity * 100)).append('"')
+                    .append(",\"cached\":").append(cached != null);
+        } else {
+            json.append("\"hits\":[");
+            List<CorpusSearcher.Hit> hits = references.searcher.search(plagiarized, k);
+            for (int i = 0; i < hits.size(); i++) {
+                CorpusSearcher.Hit hit = hits.get(i);
+                json.append(i == 0 ? "" : ",").append("{\"reference\":").append(quote(hit.getName()))
+                        .append(",\"similarity\":").append(String.format(Locale.ROOT, "%.6f", hit.getSimilarity()))
+                        .append(",\"result\":\"").append(String.format("%.2f%%", hit.getSimilarity() * 100))
+                        .append("\"}");
+            }
+            json.append(']');
+        }
+        long compared = System.nanoTime();
+
+        json.append(",\"timings\":{\"parseMillis\":").append(millis(parsed - start))
+                .append(",\"preprocessMillis\":").append(millis(preprocessed - parsed))
+                .append(",\"compareMillis\":").append(millis(compared - preprocessed))
+                .append(",\"totalMillis\":").append(millis(compared - start))
+                .append("}}");
+        send(exchange, 200, json.toString());
+    }
+
+    /**
+     * 读取请求体
+     * @return 请求体字节，超过上限时返回 null
+     */
+    private static byte[] readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+        return body.length > MAX_BODY_BYTES ? null : body;
+    }
+
+    private static void discard(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int n;
+        while (total <= MAX_BODY_BYTES && (n = in.read(buffer)) >= 0) {
+            total += n;
+        }
+    }
+
+    /**
+     * 解析 application/x-www-form-urlencoded 格式的参数，同名参数以后出现的为准
+     */
+    static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("参数编码错误: " + key, e);
+            }
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    /**
+     * 转义为 JSON 字符串
+     */
+    static String quote(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * 发送错误响应；响应头已经发出时（如写响应体的过程中出错）无法再改状态码，只能关闭连接
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() == -1) {
+            send(exchange, status, error(message));
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
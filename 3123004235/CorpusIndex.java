@@ -0,0 +1,545 @@
+// CorpusIndex.java
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 参考语料的磁盘索引。
+ *
+ * 语料只在构建时读取和预处理一次，每篇文档的分词结果、句子边界、句子文本、
+ * Winnowing 指纹和词频向量按固定布局写入索引文件。查重时以只读方式内存映射索引文件，
+ * 余弦相似度和指纹包含度直接在映射的缓冲区上计算（不复制、不占用 Java 堆），
+ * 由操作系统的页缓存管理工作集；只有需要精确计算 LCS 的文档才恢复为 {@link Document}。
+ *
+ * 词语编号是进程内分配的，索引文件自带构建时的词表，打开时与当前进程的 {@link TokenDictionary} 对照：
+ * 索引中的数据保持索引编号不变，查询文档反过来换算为索引编号后再与索引数据比较。
+ * 同义词词典变化后需要重新构建索引。
+ *
+ * 文件布局（大端）：
+ *   文件头：魔数 int，版本 int，文档数 int，词表大小 int，记录区结束位置 long，元数据位置 long；
+ *   记录区：每篇文档一条记录，8 字节对齐，且不跨越 1GB 的映射窗口；
+ *   元数据：各文档记录的位置 long、文档名称、词表（均为修改版 UTF-8）。
+ *
+ * 单条记录：句子数、词语数、向量维数、指纹数、字符数、填充（各 int），向量模 double，
+ *   指纹 long[]，各句起始词下标 int[句子数 + 1]，各句起始字符下标 int[句子数 + 1]，
+ *   词语编号 int[]，向量编号 int[]，向量词频 int[]，句子文本 char[]。
+ */
+public final class CorpusIndex {
+    private static final int MAGIC = 0x43494458;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_HEADER_SIZE = 32;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final String USAGE =
+            "使用方法: java -jar main.jar --index build [语料文件或目录] [索引文件]\n"
+            + "      或: java -jar main.jar --index check [索引文件] [待查文件] [结果文件]\n"
+            + "      或: java -jar main.jar --index search [索引文件] [待查文件] [结果文件] [K]";
+
+    private final MappedByteBuffer[] segments;
+    private final long[] recordOffsets;
+    private final String[] names;
+    private final int vocabularySize;
+    // 索引编号 -> 进程编号
+    private final int[] indexToProcess;
+    // 进程编号 -> 索引编号，-1 表示索引词表中没有该词
+    private final int[] processToIndex;
+
+    private CorpusIndex(MappedByteBuffer[] segments, long[] recordOffsets, String[] names, String[] vocabulary) {
+        this.segments = segments;
+        this.recordOffsets = recordOffsets;
+        this.names = names;
+        this.vocabularySize = vocabulary.length;
+
+        TokenDictionary dictionary = TokenDictionary.shared();
+        this.indexToProcess = new int[vocabulary.length];
+        for (int i = 0; i < vocabulary.length; i++) {
+            indexToProcess[i] = dictionary.idOf(vocabulary[i]);
+        }
+        this.processToIndex = new int[dictionary.size()];
+        Arrays.fill(processToIndex, -1);
+        for (int i = 0; i < vocabulary.length; i++) {
+            processToIndex[indexToProcess[i]] = i;
+        }
+    }
+
+    /**
+     * 命令行入口（参数不含开头的 --index）
+     * @param args 命令行参数
+     * @throws IOException 读写失败时抛出异常
+     */
+    public static void run(String[] args) throws IOException {
+        if (args.length == 3 && "build".equals(args[0])) {
+            List<Path> documents = new ArrayList<>();
+            for (String file : BatchChecker.listFiles(args[1])) {
+                documents.add(Paths.get(file));
+            }
+            Path indexFile = Paths.get(args[2]);
+            build(documents, indexFile);
+            // 同时生成 search 使用的检索数据
+            CorpusSearcher.open(open(indexFile), indexFile);
+            System.out.println("索引构建完成，共 " + documents.size() + " 篇文档");
+        } else if (args.length == 4 && "check".equals(args[0])) {
+            CorpusIndex index = open(Paths.get(args[1]));
+            int reported = index.check(FileProcessor.readFile(args[2]), args[3]);
+            System.out.println("查重完成，共 " + reported + " 篇相关文档");
+        } else if ((args.length == 4 || args.length == 5) && "search".equals(args[0])) {
+            int k = 10;
+            if (args.length == 5) {
+                try {
+                    k = Integer.parseInt(args[4]);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("K 格式错误: " + args[4]);
+                }
+            }
+            Path indexFile = Paths.get(args[1]);
+            CorpusSearcher searcher = CorpusSearcher.open(open(indexFile), indexFile);
+            StringBuilder result = new StringBuilder();
+            for (CorpusSearcher.Hit hit : searcher.search(Document.of(FileProcessor.readFile(args[2])), k)) {
+                result.append(hit.getName()).append('\t')
+                        .append(String.format("%.2f%%", hit.getSimilarity() * 100)).append('\n');
+            }
+            FileProcessor.writeFile(args[3], result.toString());
+            System.out.println("检索完成，结果已写入: " + args[3]);
+        } else {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 待查文本与索引中所有文档查重：与文档共有 Winnowing 指纹的才精确计算相似度，
+     * 结果按相似度从高到低逐行写入：文档路径\t相似度
+     * @param plagiarizedText 待查文本
+     * @param outputPath 结果文件路径
+     * @return 写入的文档数
+     * @throws IOException 写入失败时抛出异常
+     */
+    public int check(String plagiarizedText, String outputPath) throws IOException {
+        Query query = newQuery(Document.of(plagiarizedText));
+        List<double[]> scored = new ArrayList<>();
+        for (int doc = 0; doc < documentCount(); doc++) {
+            if (query.containment(doc) > 0) {
+                scored.add(new double[]{query.similarity(doc), doc});
+            }
+        }
+        scored.sort((a, b) -> Double.compare(b[0], a[0]));
+
+        StringBuilder result = new StringBuilder();
+        for (double[] entry : scored) {
+            result.append(documentName((int) entry[1])).append('\t')
+                    .append(String.format("%.2f%%", entry[0] * 100)).append('\n');
+        }
+        FileProcessor.writeFile(outputPath, result.toString());
+        return scored.size();
+    }
+
+    /**
+     * 预处理语料并写入索引文件
+     * @param documents 语料文件
+     * @param indexFile 索引文件
+     * @throws IOException 读写失败时抛出异常
+     */
+    public static void build(List<Path> documents, Path indexFile) throws IOException {
+        long[] offsets = new long[documents.size()];
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = HEADER_SIZE;
+            for (int d = 0; d < documents.size(); d++) {
+                Document document = Document.of(FileProcessor.readFile(documents.get(d).toString()));
+                ByteBuffer record = encode(document, documents.get(d));
+                // 记录不跨越映射窗口，放不下时从下一个窗口开始
+                long remaining = SEGMENT_SIZE - (position & (SEGMENT_SIZE - 1));
+                if (record.capacity() > remaining) {
+                    position += remaining;
+                }
+                offsets[d] = position;
+                writeFully(channel, record, position);
+                position += record.capacity();
+            }
+            long recordsEnd = position;
+
+            // 元数据写在记录区之后，词表在所有文档处理完之后才完整
+            channel.position(recordsEnd);
+            OutputStream stream = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+            for (Path document : documents) {
+                out.writeUTF(document.toString());
+            }
+            TokenDictionary dictionary = TokenDictionary.shared();
+            int vocabularySize = dictionary.size();
+            for (int i = 0; i < vocabularySize; i++) {
+                out.writeUTF(dictionary.tokenOf(i));
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(documents.size()).putInt(vocabularySize)
+                    .putLong(recordsEnd).putLong(recordsEnd);
+            header.flip();
+            writeFully(channel, header, 0);
+        }
+    }
+
+    private static ByteBuffer encode(Document document, Path source) throws IOException {
+        int sentenceCount = document.sentenceCount();
+        int tokenCount = 0;
+        int charCount = 0;
+        for (int s = 0; s < sentenceCount; s++) {
+            tokenCount += document.sentenceTokens(s).length;
+            charCount += document.getSentences().get(s).length();
+        }
+        SparseVector vector = document.termVector();
+        long[] fingerprints = document.fingerprints();
+
+        long size = RECORD_HEADER_SIZE + 8L * fingerprints.length
+                + 4L * (2 * (sentenceCount + 1) + tokenCount + 2 * vector.size()) + 2L * charCount;
+        size = (size + 7) & ~7L;
+        if (size > SEGMENT_SIZE) {
+            throw new IOException("文档过大，无法写入索引: " + source);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate((int) size);
+        record.putInt(sentenceCount).putInt(tokenCount).putInt(vector.size())
+                .putInt(fingerprints.length).putInt(charCount).putInt(0);
+        record.putDouble(vector.norm());
+        for (long fingerprint : fingerprints) {
+            record.putLong(fingerprint);
+        }
+        int offset = 0;
+        for (int s = 0; s < sentenceCount; s++) {
+            record.putInt(offset);
+            offset += document.sentenceTokens(s).length;
+        }
+        record.putInt(offset);
+        offset = 0;
+        for (int s = 0; s < sentenceCount; s++) {
+            record.putInt(offset);
+            offset += document.getSentences().get(s).length();
+        }
+        record.putInt(offset);
+        for (int s = 0; s < sentenceCount; s++) {
+            for (int token : document.sentenceTokens(s)) {
+                record.putInt(token);
+            }
+        }
+        for (int i = 0; i < vector.size(); i++) {
+            record.putInt(vector.idAt(i));
+        }
+        for (int i = 0; i < vector.size(); i++) {
+            record.putInt(vector.countAt(i));
+        }
+        for (String sentence : document.getSentences()) {
+            for (int i = 0; i < sentence.length(); i++) {
+                record.putChar(sentence.charAt(i));
+            }
+        }
+        record.clear();
+        return record;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * 内存映射打开索引文件
+     * @param indexFile 索引文件
+     * @return 语料索引
+     * @throws IOException 读取失败时抛出异常
+     */
+    public static CorpusIndex open(Path indexFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // 读满文件头
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("不是有效的语料索引文件: " + indexFile);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("不支持的语料索引版本: " + version);
+            }
+            int documentCount = header.getInt();
+            int vocabularySize = header.getInt();
+            long recordsEnd = header.getLong();
+            long metadataOffset = header.getLong();
+
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((recordsEnd + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, recordsEnd - start));
+            }
+
+            channel.position(metadataOffset);
+            InputStream stream = Channels.newInputStream(channel);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+            long[] recordOffsets = new long[documentCount];
+            for (int i = 0; i < documentCount; i++) {
+                recordOffsets[i] = in.readLong();
+            }
+            String[] names = new String[documentCount];
+            for (int i = 0; i < documentCount; i++) {
+                names[i] = in.readUTF();
+            }
+            String[] vocabulary = new String[vocabularySize];
+            for (int i = 0; i < vocabularySize; i++) {
+                vocabulary[i] = in.readUTF();
+            }
+            return new CorpusIndex(segments, recordOffsets, names, vocabulary);
+        } catch (NoSuchFileException e) {
+            throw new NoSuchFileException("文件不存在: " + indexFile);
+        }
+    }
+
+    public int documentCount() {
+        return recordOffsets.length;
+    }
+
+    /**
+     * @param doc 文档下标
+     * @return 构建索引时的文档路径
+     */
+    public String documentName(int doc) {
+        return names[doc];
+    }
+
+    /**
+     * 把索引中的文档恢复为预处理文档（词语换算为进程编号），用于精确计算相似度
+     * @param doc 文档下标
+     * @return 预处理文档
+     */
+    public Document document(int doc) {
+        Record record = new Record(doc);
+        int sentenceCount = record.sentenceCount();
+        List<String> sentences = new ArrayList<>(sentenceCount);
+        int[][] tokens = new int[sentenceCount][];
+        for (int s = 0; s < sentenceCount; s++) {
+            int charStart = record.charOffset(s);
+            char[] text = new char[record.charOffset(s + 1) - charStart];
+            for (int i = 0; i < text.length; i++) {
+                text[i] = record.charAt(charStart + i);
+            }
+            sentences.add(new String(text));
+
+            int tokenStart = record.tokenOffset(s);
+            tokens[s] = new int[record.tokenOffset(s + 1) - tokenStart];
+            for (int i = 0; i < tokens[s].length; i++) {
+                tokens[s][i] = indexToProcess[record.token(tokenStart + i)];
+            }
+        }
+        return Document.ofTokens(sentences, tokens);
+    }
+
+    /**
+     * 为一篇待查文档创建查询：把它的词语、词频向量和指纹换算到索引编号，之后可与任意多篇索引文档比较
+     * @param plagiarized 待查文档
+     * @return 查询
+     */
+    public Query newQuery(Document plagiarized) {
+        return new Query(plagiarized);
+    }
+
+    /**
+     * 把进程词语编号换算为索引编号，索引中没有的词换算为词表之外的编号，不会与任何索引词语相同
+     * @param processId 进程词语编号
+     * @return 索引词语编号
+     */
+    int toIndexId(int processId) {
+        if (processId < processToIndex.length && processToIndex[processId] >= 0) {
+            return processToIndex[processId];
+        }
+        return vocabularySize + processId;
+    }
+
+    /**
+     * 一篇待查文档对索引的查询，线程安全，可与多篇索引文档反复比较
+     */
+    public final class Query {
+        private final Document document;
+        private final SparseVector vector;
+        private final long[] fingerprints;
+
+        private Query(Document document) {
+            this.document = document;
+            int total = 0;
+            for (int s = 0; s < document.sentenceCount(); s++) {
+                total += document.sentenceTokens(s).length;
+            }
+            int[] tokens = new int[total];
+            int offset = 0;
+            for (int s = 0; s < document.sentenceCount(); s++) {
+                for (int token : document.sentenceTokens(s)) {
+                    tokens[offset++] = toIndexId(token);
+                }
+            }
+            this.fingerprints = Winnowing.fingerprints(tokens);
+            Arrays.sort(tokens);
+            this.vector = SparseVector.ofSorted(tokens);
+        }
+
+        /**
+         * 词频余弦相似度，直接在映射的缓冲区上按编号归并
+         * @param doc 索引文档下标
+         * @return 余弦相似度
+         */
+        public double cosine(int doc) {
+            Record record = new Record(doc);
+            double norm = record.norm();
+            if (norm == 0 || vector.norm() == 0) {
+                return 0.0;
+            }
+            int size = record.vectorSize();
+            long dotProduct = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size && j < vector.size()) {
+                int id1 = record.vectorId(i);
+                int id2 = vector.idAt(j);
+                if (id1 < id2) {
+                    i++;
+                } else if (id1 > id2) {
+                    j++;
+                } else {
+                    dotProduct += (long) record.vectorCount(i) * vector.countAt(j);
+                    i++;
+                    j++;
+                }
+            }
+            return dotProduct / (norm * vector.norm());
+        }
+
+        /**
+         * 待查文档的指纹被索引文档指纹包含的比例，直接在映射的缓冲区上归并
+         * @param doc 索引文档下标
+         * @return 包含度（0~1）
+         */
+        public double containment(int doc) {
+            Record record = new Record(doc);
+            int count = record.fingerprintCount();
+            if (count == 0 || fingerprints.length == 0) {
+                return 0.0;
+            }
+            int shared = 0;
+            int i = 0;
+            int j = 0;
+            while (i < count && j < fingerprints.length) {
+                long fingerprint = record.fingerprint(i);
+                if (fingerprint < fingerprints[j]) {
+                    i++;
+                } else if (fingerprint > fingerprints[j]) {
+                    j++;
+                } else {
+                    shared++;
+                    i++;
+                    j++;
+                }
+            }
+            return (double) shared / fingerprints.length;
+        }
+
+        /**
+         * 精确相似度（与 {@link SimilarityCalculator#calculateSimilarity(Document, Document)} 相同）
+         * @param doc 索引文档下标
+         * @return 相似度（0~1）
+         */
+        public double similarity(int doc) {
+            return SimilarityCalculator.calculateSimilarity(document(doc), document);
+        }
+    }
+
+    /**
+     * 映射缓冲区上的一条文档记录，只做绝对位置读取，多线程共享同一缓冲区也是安全的
+     */
+    private final class Record {
+        private final ByteBuffer buffer;
+        private final int base;
+        private final int fingerprintsStart;
+        private final int tokenOffsetsStart;
+        private final int charOffsetsStart;
+        private final int tokensStart;
+        private final int vectorIdsStart;
+        private final int vectorCountsStart;
+        private final int charsStart;
+
+        Record(int doc) {
+            long offset = recordOffsets[doc];
+            this.buffer = segments[(int) (offset >>> SEGMENT_SHIFT)];
+            this.base = (int) (offset & (SEGMENT_SIZE - 1));
+            int sentenceCount = buffer.getInt(base);
+            this.fingerprintsStart = base + RECORD_HEADER_SIZE;
+            this.tokenOffsetsStart = fingerprintsStart + 8 * fingerprintCount();
+            this.charOffsetsStart = tokenOffsetsStart + 4 * (sentenceCount + 1);
+            this.tokensStart = charOffsetsStart + 4 * (sentenceCount + 1);
+            this.vectorIdsStart = tokensStart + 4 * buffer.getInt(base + 4);
+            this.vectorCountsStart = vectorIdsStart + 4 * vectorSize();
+            this.charsStart = vectorCountsStart + 4 * vectorSize();
+        }
+
+        int sentenceCount() {
+            return buffer.getInt(base);
+        }
+
+        int vectorSize() {
+            return buffer.getInt(base + 8);
+        }
+
+        int fingerprintCount() {
+            return buffer.getInt(base + 12);
+        }
+
+        double norm() {
+            return buffer.getDouble(base + 24);
+        }
+
+        long fingerprint(int index) {
+            return buffer.getLong(fingerprintsStart + 8 * index);
+        }
+
+        int tokenOffset(int sentence) {
+            return buffer.getInt(tokenOffsetsStart + 4 * sentence);
+        }
+
+        int charOffset(int sentence) {
+            return buffer.getInt(charOffsetsStart + 4 * sentence);
+        }
+
+        int token(int index) {
+            return buffer.getInt(tokensStart + 4 * index);
+        }
+
+        int vectorId(int index) {
+            return buffer.getInt(vectorIdsStart + 4 * index);
+        }
+
+        int vectorCount(int index) {
+            return buffer.getInt(vectorCountsStart + 4 * index);
+        }
+
+        char charAt(int index) {
+            return buffer.getChar(charsStart + 2 * index);
+        }
+    }
+}
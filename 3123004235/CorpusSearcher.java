@@ -0,0 +1,663 @@
+// CorpusSearcher.java
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 语料检索：找出语料中与待查文档最相似的 K 篇来源文档。
+ *
+ * 对语料中标准化后的词语建立倒排索引，先按 BM25 给候选文档打分，只对得分最高的 K 篇
+ * 用 {@link SimilarityCalculator#calculateSimilarity(Document, Document)} 精确计算相似度并重新排序。
+ *
+ * 分词结果是按字的，几乎每篇文档都含有常用字，单字的倒排表过长、区分度也低，
+ * 因此检索词取句内相邻两个词语组成的二元组（只有一个词的句子取该词本身）。
+ *
+ * 打分采用 MaxScore 动态剪枝：检索词按各自的得分上界升序排列，上界之和不超过当前第 K 名得分的
+ * 那部分检索词（非必要词）单独出现的文档不可能进入前 K 名，只沿其余检索词（必要词）的倒排表枚举文档，
+ * 必要词按各自当前文档下标放在最小堆中，每个候选文档只访问含有它的倒排表；
+ * 非必要词只在被枚举到的文档上查找，且累计得分加剩余上界不足以进入前 K 名时立即放弃该文档。
+ * 结果与逐篇计算 BM25 的前 K 名一致（得分相同的文档之间的先后可能不同）。
+ *
+ * 检索词表、倒排表（文档下标和词频）、各文档的长度归一化系数和各检索词的得分上界
+ * 存放在一块连续的缓冲区中（IDF 由倒排表长度即文档频率算出，不单独保存）。对磁盘语料索引，这块缓冲区保存为索引文件旁的 .bm25 文件，
+ * 检索时直接内存映射，不再逐篇恢复文档重建倒排表（见 {@link #open(CorpusIndex, Path)}）。
+ *
+ * 布局（大端）：
+ *   魔数 int，版本 int，文档数 int，检索词数 int，哈希表容量 int，倒排记录数 int，
+ *   索引文件大小 long，索引文件修改时间 long（内存中的语料为 0），
+ *   哈希表键 long[容量]，长度归一化系数 double[文档数]，得分上界 double[检索词数]，
+ *   哈希表值 int[容量]，倒排表起始位置 int[检索词数 + 1]，倒排文档下标 int[记录数]，倒排词频 int[记录数]。
+ */
+public final class CorpusSearcher {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MAGIC = 0x424D3235;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+
+    private final List<String> names;
+    private final IntFunction<Document> documents;
+    // 进程词语编号 -> 检索数据中的词语编号
+    private final IntUnaryOperator termIds;
+    // 二元组 -> 检索词编号，开放寻址哈希表，slotTerms 存放编号 + 1，0 表示空槽
+    private final LongBuffer slotKeys;
+    private final IntBuffer slotTerms;
+    private final int slotMask;
+    private final DoubleBuffer lengthNorms;
+    private final DoubleBuffer maxScores;
+    // 倒排表：第 t 个检索词的记录位于 [offsets[t], offsets[t + 1])，文档下标升序
+    private final IntBuffer offsets;
+    private final IntBuffer postingDocs;
+    private final IntBuffer postingFrequencies;
+
+    private CorpusSearcher(List<String> names, IntFunction<Document> documents, IntUnaryOperator termIds,
+                           ByteBuffer data) throws IOException {
+        this.names = names;
+        this.documents = documents;
+        this.termIds = termIds;
+
+        ByteBuffer buffer = data.asReadOnlyBuffer();
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("不是有效的检索数据");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("不支持的检索数据版本: " + buffer.getInt(4));
+        }
+        int documentCount = buffer.getInt(8);
+        int termCount = buffer.getInt(12);
+        int slotCapacity = buffer.getInt(16);
+        int postingCount = buffer.getInt(20);
+        if (documentCount != names.size() || slotCapacity < 1 || Integer.bitCount(slotCapacity) != 1) {
+            throw new IOException("检索数据与语料不一致");
+        }
+
+        long position = HEADER_SIZE;
+        this.slotKeys = slice(buffer, position, 8L * slotCapacity).asLongBuffer();
+        position += 8L * slotCapacity;
+        this.lengthNorms = slice(buffer, position, 8L * documentCount).asDoubleBuffer();
+        position += 8L * documentCount;
+        this.maxScores = slice(buffer, position, 8L * termCount).asDoubleBuffer();
+        position += 8L * termCount;
+        this.slotTerms = slice(buffer, position, 4L * slotCapacity).asIntBuffer();
+        position += 4L * slotCapacity;
+        this.offsets = slice(buffer, position, 4L * (termCount + 1)).asIntBuffer();
+        position += 4L * (termCount + 1);
+        this.postingDocs = slice(buffer, position, 4L * postingCount).asIntBuffer();
+        position += 4L * postingCount;
+        this.postingFrequencies = slice(buffer, position, 4L * postingCount).asIntBuffer();
+        this.slotMask = slotCapacity - 1;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long position, long length) throws IOException {
+        if (position + length > buffer.capacity()) {
+            throw new IOException("检索数据已损坏");
+        }
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position((int) position).limit((int) (position + length));
+        return duplicate.slice();
+    }
+
+    /**
+     * 对内存中的文档建立检索索引
+     * @param names 文档名称
+     * @param documents 预处理文档，与名称一一对应
+     * @return 语料检索
+     */
+    public static CorpusSearcher of(List<String> names, List<Document> documents) {
+        if (names.size() != documents.size()) {
+            throw new IllegalArgumentException("文档名称数与文档数不一致");
+        }
+        List<Document> copy = new ArrayList<>(documents);
+        IntUnaryOperator identity = id -> id;
+        return fromBuffer(new ArrayList<>(names), copy::get, identity,
+                buildData(copy.size(), copy::get, identity, 0, 0));
+    }
+
+    /**
+     * 对磁盘语料索引建立检索索引（只在内存中，不保存），文档只在建索引和重新排序时逐篇恢复，不常驻内存
+     * @param index 语料索引
+     * @return 语料检索
+     */
+    public static CorpusSearcher of(CorpusIndex index) {
+        return fromBuffer(namesOf(index), index::document, index::toIndexId,
+                buildData(index.documentCount(), index::document, index::toIndexId, 0, 0));
+    }
+
+    /**
+     * 打开磁盘语料索引的检索数据：内存映射索引文件旁的 .bm25 文件；
+     * 该文件不存在或与索引文件不一致（索引文件的大小或修改时间变了）时，重新构建并保存后再映射
+     * @param index 语料索引
+     * @param indexFile 索引文件
+     * @return 语料检索
+     * @throws IOException 读写失败时抛出异常
+     */
+    public static CorpusSearcher open(CorpusIndex index, Path indexFile) throws IOException {
+        Path dataFile = dataFileOf(indexFile);
+        long indexSize;
+        long indexModified;
+        try {
+            indexSize = Files.size(indexFile);
+            indexModified = Files.getLastModifiedTime(indexFile).toMillis();
+        } catch (NoSuchFileException e) {
+            throw new NoSuchFileException("文件不存在: " + indexFile);
+        }
+
+        if (Files.exists(dataFile)) {
+            ByteBuffer mapped = map(dataFile);
+            if (mapped.capacity() >= HEADER_SIZE
+                    && mapped.getLong(24) == indexSize && mapped.getLong(32) == indexModified) {
+                try {
+                    return new CorpusSearcher(namesOf(index), index::document, index::toIndexId, mapped);
+                } catch (IOException e) {
+                    // 文件损坏或版本不同，与索引不一致时一样重新构建
+                }
+            }
+        }
+
+        // 写临时文件后原子改名，并发打开同一索引时不会读到写了一半的文件
+        ByteBuffer data = buildData(index.documentCount(), index::document, index::toIndexId,
+                indexSize, indexModified);
+        Path parent = dataFile.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, dataFile.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            Files.move(temp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return new CorpusSearcher(namesOf(index), index::document, index::toIndexId, map(dataFile));
+    }
+
+    /**
+     * @param indexFile 索引文件
+     * @return 索引文件对应的检索数据文件（索引文件名加 .bm25）
+     */
+    static Path dataFileOf(Path indexFile) {
+        return Paths.get(indexFile.toString() + ".bm25");
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("检索数据文件过大: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static List<String> namesOf(CorpusIndex index) {
+        List<String> names = new ArrayList<>(index.documentCount());
+        for (int d = 0; d < index.documentCount(); d++) {
+            names.add(index.documentName(d));
+        }
+        return names;
+    }
+
+    private static CorpusSearcher fromBuffer(List<String> names, IntFunction<Document> documents,
+                                             IntUnaryOperator termIds, ByteBuffer data) {
+        try {
+            return new CorpusSearcher(names, documents, termIds, data);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 逐篇预处理文档，构建检索数据
+     */
+    private static ByteBuffer buildData(int documentCount, IntFunction<Document> documents,
+                                        IntUnaryOperator termIds, long indexSize, long indexModified) {
+        // 第一遍：统计每篇文档的检索词及词频，为二元组分配检索词编号
+        long[] keys = new long[1024];
+        int[] terms = new int[1024];
+        int termCount = 0;
+        int[][] docTerms = new int[documentCount][];
+        int[][] docFrequencies = new int[documentCount][];
+        int[] docLengths = new int[documentCount];
+        long totalLength = 0;
+        for (int d = 0; d < documentCount; d++) {
+            long[] bigrams = bigrams(documents.apply(d), termIds);
+            docLengths[d] = bigrams.length;
+            totalLength += bigrams.length;
+            Arrays.sort(bigrams);
+
+            int distinct = 0;
+            int[] termIdsOfDoc = new int[bigrams.length];
+            int[] frequencies = new int[bigrams.length];
+            for (int i = 0; i < bigrams.length; i++) {
+                if (i > 0 && bigrams[i] == bigrams[i - 1]) {
+                    frequencies[distinct - 1]++;
+                    continue;
+                }
+                if ((termCount + 1) * 2 > keys.length) {
+                    long[] oldKeys = keys;
+                    int[] oldTerms = terms;
+                    keys = new long[oldKeys.length * 2];
+                    terms = new int[oldKeys.length * 2];
+                    for (int s = 0; s < oldKeys.length; s++) {
+                        if (oldTerms[s] != 0) {
+                            int slot = findSlot(keys, terms, oldKeys[s]);
+                            keys[slot] = oldKeys[s];
+                            terms[slot] = oldTerms[s];
+                        }
+                    }
+                }
+                int slot = findSlot(keys, terms, bigrams[i]);
+                if (terms[slot] == 0) {
+                    keys[slot] = bigrams[i];
+                    terms[slot] = ++termCount;
+                }
+                termIdsOfDoc[distinct] = terms[slot] - 1;
+                frequencies[distinct] = 1;
+                distinct++;
+            }
+            docTerms[d] = Arrays.copyOf(termIdsOfDoc, distinct);
+            docFrequencies[d] = Arrays.copyOf(frequencies, distinct);
+        }
+
+        // 第二遍：按文档频率分配倒排表空间，按文档顺序填入，同时求各检索词的 IDF 和得分上界
+        int[] documentFrequencies = new int[termCount];
+        for (int[] termIdsOfDoc : docTerms) {
+            for (int term : termIdsOfDoc) {
+                documentFrequencies[term]++;
+            }
+        }
+        int[] offsets = new int[termCount + 1];
+        for (int t = 0; t < termCount; t++) {
+            offsets[t + 1] = offsets[t] + documentFrequencies[t];
+        }
+        int postingCount = offsets[termCount];
+        long size = HEADER_SIZE + 12L * keys.length + 8L * documentCount + 8L * termCount
+                + 4L * (termCount + 1) + 8L * postingCount;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("语料过大，检索数据超过 2GB");
+        }
+
+        double[] idf = new double[termCount];
+        for (int t = 0; t < termCount; t++) {
+            idf[t] = idf(documentCount, documentFrequencies[t]);
+        }
+        double[] lengthNorm = new double[documentCount];
+        double averageLength = documentCount == 0 ? 0 : Math.max(1.0, (double) totalLength / documentCount);
+        for (int d = 0; d < documentCount; d++) {
+            lengthNorm[d] = K1 * (1 - B + B * docLengths[d] / averageLength);
+        }
+        int[] postingDocs = new int[postingCount];
+        int[] postingFrequencies = new int[postingCount];
+        double[] maxScores = new double[termCount];
+        int[] fill = Arrays.copyOf(offsets, termCount);
+        for (int d = 0; d < documentCount; d++) {
+            for (int i = 0; i < docTerms[d].length; i++) {
+                int term = docTerms[d][i];
+                int frequency = docFrequencies[d][i];
+                int p = fill[term]++;
+                postingDocs[p] = d;
+                postingFrequencies[p] = frequency;
+                maxScores[term] = Math.max(maxScores[term], score(idf[term], frequency, lengthNorm[d]));
+            }
+            docTerms[d] = null;
+            docFrequencies[d] = null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(documentCount).putInt(termCount)
+                .putInt(keys.length).putInt(postingCount).putLong(indexSize).putLong(indexModified);
+        buffer.asLongBuffer().put(keys);
+        buffer.position(buffer.position() + 8 * keys.length);
+        DoubleBuffer doubles = buffer.asDoubleBuffer();
+        doubles.put(lengthNorm).put(maxScores);
+        buffer.position(buffer.position() + 8 * doubles.position());
+        buffer.asIntBuffer().put(terms).put(offsets).put(postingDocs).put(postingFrequencies);
+        buffer.clear();
+        return buffer;
+    }
+
+    private static double idf(int documentCount, int documentFrequency) {
+        return Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    // 一条倒排记录的 BM25 分量
+    private static double score(double idf, int frequency, double lengthNorm) {
+        return idf * frequency * (K1 + 1) / (frequency + lengthNorm);
+    }
+
+    private double idf(int term) {
+        return idf(names.size(), offsets.get(term + 1) - offsets.get(term));
+    }
+
+    private double postingScore(double idf, int position) {
+        return score(idf, postingFrequencies.get(position), lengthNorms.get(postingDocs.get(position)));
+    }
+
+    public int documentCount() {
+        return names.size();
+    }
+
+    /**
+     * 找出与待查文档最相似的 K 篇文档
+     * @param query 待查文档
+     * @param k 返回的文档数
+     * @return 按相似度从高到低排列的结果，最多 K 条
+     */
+    public List<Hit> search(Document query, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("K 必须大于0");
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (double[] candidate : topBm25(query, k)) {
+            int doc = (int) candidate[1];
+            double similarity = SimilarityCalculator.calculateSimilarity(documents.apply(doc), query);
+            hits.add(new Hit(names.get(doc), doc, candidate[0], similarity));
+        }
+        hits.sort(Comparator.comparingDouble(Hit::getSimilarity).reversed()
+                .thenComparing(Comparator.comparingDouble(Hit::getScore).reversed()));
+        return hits;
+    }
+
+    /**
+     * 按 BM25 得分取前 K 篇文档（MaxScore 剪枝）
+     * @return 每项为 {得分, 文档下标}，按得分从高到低排列
+     */
+    List<double[]> topBm25(Document query, int k) {
+        int[] order = queryTerms(query);
+        int n = order.length;
+        // 检索词按得分上界升序排列：上界（非负数，float 的位模式与大小同序）放在高 32 位，检索词编号放在低 32 位
+        long[] sortKeys = new long[n];
+        for (int i = 0; i < n; i++) {
+            sortKeys[i] = ((long) Float.floatToIntBits((float) maxScores.get(order[i])) << 32) | order[i];
+        }
+        Arrays.sort(sortKeys);
+        // prefix[i] 为前 i + 1 个检索词的上界之和
+        int[] positions = new int[n];
+        int[] ends = new int[n];
+        double[] idfs = new double[n];
+        double[] prefix = new double[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = (int) sortKeys[i];
+            positions[i] = offsets.get(order[i]);
+            ends[i] = offsets.get(order[i] + 1);
+            idfs[i] = idf(order[i]);
+            prefix[i] = (i == 0 ? 0 : prefix[i - 1]) + maxScores.get(order[i]);
+        }
+
+        // 必要词倒排表的最小堆，按当前文档下标排列；变为非必要词的表出堆时丢弃
+        DocHeap heap = new DocHeap(n);
+        for (int i = 0; i < n; i++) {
+            if (positions[i] < ends[i]) {
+                heap.push(postingDocs.get(positions[i]), i);
+            }
+        }
+
+        PriorityQueue<double[]> top = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+        double threshold = 0;
+        int firstEssential = 0;
+        while (firstEssential < n) {
+            // 必要词的倒排表中下一个文档
+            while (heap.size() > 0 && heap.topList() < firstEssential) {
+                heap.pop();
+            }
+            if (heap.size() == 0) {
+                break;
+            }
+            int doc = heap.topDoc();
+
+            double score = 0;
+            while (heap.size() > 0 && heap.topDoc() == doc) {
+                int i = heap.topList();
+                heap.pop();
+                if (i < firstEssential) {
+                    continue;
+                }
+                score += postingScore(idfs[i], positions[i]++);
+                if (positions[i] < ends[i]) {
+                    heap.push(postingDocs.get(positions[i]), i);
+                }
+            }
+            // 非必要词从上界大的开始查找，剩余上界不足以进入前 K 名时放弃
+            for (int i = firstEssential - 1; i >= 0; i--) {
+                if (top.size() == k && score + prefix[i] <= threshold) {
+                    break;
+                }
+                positions[i] = advance(positions[i], ends[i], doc);
+                if (positions[i] < ends[i] && postingDocs.get(positions[i]) == doc) {
+                    score += postingScore(idfs[i], positions[i]);
+                }
+            }
+
+            if (top.size() < k || score > threshold) {
+                top.add(new double[]{score, doc});
+                if (top.size() > k) {
+                    top.poll();
+                }
+                if (top.size() == k) {
+                    threshold = top.peek()[0];
+                    while (firstEssential < n && prefix[firstEssential] <= threshold) {
+                        firstEssential++;
+                    }
+                }
+            }
+        }
+
+        List<double[]> result = new ArrayList<>(top);
+        result.sort((a, b) -> Double.compare(b[0], a[0]));
+        return result;
+    }
+
+    /**
+     * 按 (文档下标, 倒排表序号) 排列的二叉最小堆，两个 int 打包为一个 long，不装箱
+     */
+    private static final class DocHeap {
+        private final long[] entries;
+        private int size;
+
+        DocHeap(int capacity) {
+            this.entries = new long[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int topDoc() {
+            return (int) (entries[0] >>> 32);
+        }
+
+        int topList() {
+            return (int) entries[0];
+        }
+
+        // 文档下标和序号都非负，打包后的 long 与 (文档下标, 序号) 的字典序同序
+        void push(int doc, int list) {
+            long entry = ((long) doc << 32) | list;
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (entries[parent] <= entry) {
+                    break;
+                }
+                entries[i] = entries[parent];
+                i = parent;
+            }
+            entries[i] = entry;
+        }
+
+        void pop() {
+            long last = entries[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && entries[child + 1] < entries[child]) {
+                    child++;
+                }
+                if (last <= entries[child]) {
+                    break;
+                }
+                entries[i] = entries[child];
+                i = child;
+            }
+            entries[i] = last;
+        }
+    }
+
+    /**
+     * 逐篇计算 BM25 得分（不剪枝），用于验证剪枝结果
+     * @return 各文档的得分
+     */
+    double[] scoreAll(Document query) {
+        double[] scores = new double[names.size()];
+        for (int term : queryTerms(query)) {
+            double idf = idf(term);
+            for (int p = offsets.get(term); p < offsets.get(term + 1); p++) {
+                scores[postingDocs.get(p)] += postingScore(idf, p);
+            }
+        }
+        return scores;
+    }
+
+    // 待查文档中在语料里出现过的检索词（去重）
+    private int[] queryTerms(Document query) {
+        long[] bigrams = bigrams(query, termIds);
+        Arrays.sort(bigrams);
+        int[] terms = new int[bigrams.length];
+        int count = 0;
+        for (int i = 0; i < bigrams.length; i++) {
+            if (i > 0 && bigrams[i] == bigrams[i - 1]) {
+                continue;
+            }
+            int slot = slotOf(bigrams[i]);
+            while (slotTerms.get(slot) != 0 && slotKeys.get(slot) != bigrams[i]) {
+                slot = (slot + 1) & slotMask;
+            }
+            if (slotTerms.get(slot) != 0) {
+                terms[count++] = slotTerms.get(slot) - 1;
+            }
+        }
+        return Arrays.copyOf(terms, count);
+    }
+
+    // 倒排表 [position, end) 中第一个文档下标不小于 doc 的位置（倍增后二分）
+    private int advance(int position, int end, int doc) {
+        if (position >= end || postingDocs.get(position) >= doc) {
+            return position;
+        }
+        int step = 1;
+        int low = position;
+        int high = position + 1;
+        while (high < end && postingDocs.get(high) < doc) {
+            low = high;
+            step <<= 1;
+            high = Math.min(end, high + step);
+        }
+        high = Math.min(high, end);
+        // postingDocs[low] < doc，答案在 (low, high] 内
+        while (low + 1 < high) {
+            int middle = (low + high) >>> 1;
+            if (postingDocs.get(middle) < doc) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+
+    private static long[] bigrams(Document document, IntUnaryOperator termIds) {
+        int total = 0;
+        for (int s = 0; s < document.sentenceCount(); s++) {
+            total += Math.max(1, document.sentenceTokens(s).length - 1);
+        }
+        long[] bigrams = new long[total];
+        int size = 0;
+        for (int s = 0; s < document.sentenceCount(); s++) {
+            int[] tokens = document.sentenceTokens(s);
+            if (tokens.length == 1) {
+                bigrams[size++] = ((long) termIds.applyAsInt(tokens[0]) << 32) | 0xFFFFFFFFL;
+            }
+            for (int i = 0; i + 1 < tokens.length; i++) {
+                bigrams[size++] = ((long) termIds.applyAsInt(tokens[i]) << 32) | termIds.applyAsInt(tokens[i + 1]);
+            }
+        }
+        return Arrays.copyOf(bigrams, size);
+    }
+
+    private int slotOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & slotMask;
+    }
+
+    private static int findSlot(long[] keys, int[] terms, long key) {
+        int mask = keys.length - 1;
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (terms[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * 一条检索结果
+     */
+    public static final class Hit {
+        private final String name;
+        private final int document;
+        private final double score;
+        private final double similarity;
+
+        Hit(String name, int document, double score, double similarity) {
+            this.name = name;
+            this.document = document;
+            this.score = score;
+            this.similarity = similarity;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 文档在语料中的下标
+         */
+        public int getDocument() {
+            return document;
+        }
+
+        /**
+         * @return BM25 得分
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * @return 精确相似度（0~1）
+         */
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+}
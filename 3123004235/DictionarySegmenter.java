@@ -0,0 +1,295 @@
+// DictionarySegmenter.java
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于词典的正向最大匹配分词器。
+ *
+ * 由同义词表和停用词表（见 {@link SynonymDictionary}）构建的字典树，对句子做一次线性扫描即可同时完成
+ * 分词、过滤停用词和同义词标准化，直接输出 {@link TokenDictionary} 中的词语编号：
+ *   - 从当前位置起匹配字典树中最长的词；
+ *   - 匹配到停用词则丢弃，匹配到同义词则替换为其所在同义词组的代表词；
+ *   - 其余字符按字输出（空白和控制字符除外，与 {@link TextProcessor#segmentSentence} 一致）。
+ * 输出仍以单字为粒度（代表词也按字输出），句子长度的含义与按字分词一致，相似度阈值无需调整。
+ *
+ * 同义词表中大量是双向映射（如“迅速”→“快速”、“快速”→“迅速”），逐词查表替换后两边仍然不同。
+ * 这里把有映射关系的词合并为同义词组（并查集），组内所有词都映射为同一个代表词。
+ * 代表词取组内最短的词（长度相同时取字典序最小者），避免“走”“跑”这类单字被替换成“行走”“奔跑”，
+ * 改变句子长度和句子匹配阈值的含义。
+ *
+ * 字典树由 {@link Trie} 在构建词典时一次生成，随词典一起写入编译后的二进制文件；
+ * 分词器直接在词典的缓冲区（编译后的词典即为内存映射文件）上查找，启动时不再合并同义词组或重建字典树。
+ * 扫描过程不为每个字创建字符串：单字的编号缓存在按字符下标的数组中。
+ */
+final class DictionarySegmenter {
+    private static final DictionarySegmenter SHARED = new DictionarySegmenter(SynonymDictionary.shared());
+
+    private final TokenDictionary dictionary = TokenDictionary.shared();
+    // 字典树的边：开放寻址哈希表，键为 (父节点 << 16 | 字符)，值为子节点
+    private final LongBuffer edgeKeys;
+    private final IntBuffer edgeChildren;
+    private final int edgeMask;
+    // 每个节点的输出 (偏移, 长度)，见 Trie
+    private final IntBuffer nodeOutputs;
+    private final CharBuffer outputChars;
+    // 单字的编号缓存，存放编号 + 1，0 表示尚未分配
+    private final int[] charTokens = new int[Character.MAX_VALUE + 1];
+
+    DictionarySegmenter(SynonymDictionary source) {
+        this.edgeKeys = source.trieEdgeKeys();
+        this.edgeChildren = source.trieEdgeChildren();
+        this.edgeMask = edgeKeys.capacity() - 1;
+        this.nodeOutputs = source.trieNodeOutputs();
+        this.outputChars = source.trieOutputChars();
+    }
+
+    /**
+     * @return 由共享词典（{@link SynonymDictionary#shared()}）构建的共享分词器
+     */
+    static DictionarySegmenter shared() {
+        return SHARED;
+    }
+
+    /**
+     * 对文本分词，返回标准化后的词语编号
+     * @param text 文本
+     * @return 词语编号
+     */
+    int[] segment(CharSequence text) {
+        return segment(text, 0, text.length());
+    }
+
+    /**
+     * 对文本的 [from, to) 区间分词，返回标准化后的词语编号
+     * @param text 文本
+     * @param from 起始下标（含）
+     * @param to 结束下标（不含）
+     * @return 词语编号
+     */
+    int[] segment(CharSequence text, int from, int to) {
+        int[] tokens = new int[Math.max(16, to - from)];
+        int size = 0;
+        int i = from;
+        while (i < to) {
+            // 沿字典树找最长的词
+            int node = 0;
+            int matchEnd = -1;
+            int matchNode = 0;
+            for (int j = i; j < to; j++) {
+                node = child(node, text.charAt(j));
+                if (node < 0) {
+                    break;
+                }
+                if (nodeOutputs.get(node * 2 + 1) != Trie.NO_OUTPUT) {
+                    matchEnd = j + 1;
+                    matchNode = node;
+                }
+            }
+
+            if (matchEnd > 0) {
+                // 停用词的输出为空；代表词可能比原词长
+                int offset = nodeOutputs.get(matchNode * 2);
+                int length = nodeOutputs.get(matchNode * 2 + 1);
+                if (size + length > tokens.length) {
+                    tokens = Arrays.copyOf(tokens, Math.max(tokens.length * 2, size + length));
+                }
+                for (int k = 0; k < length; k++) {
+                    tokens[size++] = charToken(outputChars.get(offset + k));
+                }
+                i = matchEnd;
+            } else {
+                char c = text.charAt(i);
+                if (c > ' ') {
+                    if (size == tokens.length) {
+                        tokens = Arrays.copyOf(tokens, tokens.length * 2);
+                    }
+                    tokens[size++] = charToken(c);
+                }
+                i++;
+            }
+        }
+        return size == tokens.length ? tokens : Arrays.copyOf(tokens, size);
+    }
+
+    private int charToken(char c) {
+        int cached = charTokens[c];
+        if (cached == 0) {
+            // 并发时可能重复计算，但结果相同
+            cached = dictionary.idOf(String.valueOf(c)) + 1;
+            charTokens[c] = cached;
+        }
+        return cached - 1;
+    }
+
+    private int child(int node, char c) {
+        long key = ((long) node << 16) | c;
+        int slot = slot(key, edgeMask);
+        long current;
+        while ((current = edgeKeys.get(slot)) != -1L) {
+            if (current == key) {
+                return edgeChildren.get(slot);
+            }
+            slot = (slot + 1) & edgeMask;
+        }
+        return -1;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * 构建词典时生成的字典树，由 {@link SynonymDictionary} 写入词典的缓冲区：
+     *   - 边表：容量为 2 的幂的开放寻址哈希表，键为 (父节点 << 16 | 字符)，空槽为 -1，值为子节点；
+     *   - 节点输出：每个节点 (偏移, 长度) 两个 int，指向输出字符区中的代表词，
+     *     长度为 {@link #NO_OUTPUT} 表示该节点不是词尾，为 0 表示停用词；
+     *   - 输出字符区：各代表词的字符，相同的代表词只存一份。
+     */
+    static final class Trie {
+        static final int NO_OUTPUT = -1;
+
+        long[] edgeKeys = new long[1024];
+        int[] edgeChildren = new int[1024];
+        private int edgeCount;
+        int[] nodeOutputs = new int[512];
+        int nodeCount = 1;
+        final StringBuilder outputChars = new StringBuilder();
+
+        Trie(Map<String, String> synonyms, Set<String> stopWords) {
+            Arrays.fill(edgeKeys, -1L);
+            Arrays.fill(nodeOutputs, NO_OUTPUT);
+
+            Map<String, Integer> outputOffsets = new HashMap<>();
+            for (Map.Entry<String, String> entry : groupSynonyms(synonyms).entrySet()) {
+                String canonical = entry.getValue();
+                Integer offset = outputOffsets.get(canonical);
+                if (offset == null) {
+                    offset = outputChars.length();
+                    outputChars.append(canonical);
+                    outputOffsets.put(canonical, offset);
+                }
+                int node = insert(entry.getKey());
+                nodeOutputs[node * 2] = offset;
+                nodeOutputs[node * 2 + 1] = canonical.length();
+            }
+            // 停用词优先于同义词
+            for (String stopWord : stopWords) {
+                int node = insert(stopWord);
+                nodeOutputs[node * 2] = 0;
+                nodeOutputs[node * 2 + 1] = 0;
+            }
+        }
+
+        /**
+         * 把同义词映射合并为同义词组，返回每个词到组内代表词（最短者，长度相同时取字典序最小者）的映射
+         */
+        private static Map<String, String> groupSynonyms(Map<String, String> synonyms) {
+            Map<String, String> parent = new HashMap<>();
+            for (Map.Entry<String, String> entry : synonyms.entrySet()) {
+                String a = find(parent, entry.getKey());
+                String b = find(parent, entry.getValue());
+                if (!a.equals(b)) {
+                    // 以较短者（长度相同时取字典序较小者）为根，根即为代表词
+                    if (precedes(a, b)) {
+                        parent.put(b, a);
+                    } else {
+                        parent.put(a, b);
+                    }
+                }
+            }
+
+            Map<String, String> canonical = new HashMap<>();
+            for (String word : parent.keySet()) {
+                canonical.put(word, find(parent, word));
+            }
+            return canonical;
+        }
+
+        private static boolean precedes(String a, String b) {
+            return a.length() != b.length() ? a.length() < b.length() : a.compareTo(b) < 0;
+        }
+
+        private static String find(Map<String, String> parent, String word) {
+            String root = parent.computeIfAbsent(word, w -> w);
+            while (!root.equals(parent.get(root))) {
+                root = parent.get(root);
+            }
+            // 路径压缩
+            String current = word;
+            while (!current.equals(root)) {
+                String next = parent.get(current);
+                parent.put(current, root);
+                current = next;
+            }
+            return root;
+        }
+
+        private int insert(String word) {
+            int node = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int next = child(node, word.charAt(i));
+                if (next < 0) {
+                    next = newNode();
+                    putEdge(node, word.charAt(i), next);
+                }
+                node = next;
+            }
+            return node;
+        }
+
+        private int newNode() {
+            if (nodeCount * 2 == nodeOutputs.length) {
+                int oldLength = nodeOutputs.length;
+                nodeOutputs = Arrays.copyOf(nodeOutputs, oldLength * 2);
+                Arrays.fill(nodeOutputs, oldLength, nodeOutputs.length, NO_OUTPUT);
+            }
+            return nodeCount++;
+        }
+
+        private int child(int node, char c) {
+            long key = ((long) node << 16) | c;
+            int mask = edgeKeys.length - 1;
+            int slot = slot(key, mask);
+            while (edgeKeys[slot] != -1L) {
+                if (edgeKeys[slot] == key) {
+                    return edgeChildren[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void putEdge(int node, char c, int childNode) {
+            if ((edgeCount + 1) * 2 > edgeKeys.length) {
+                long[] oldKeys = edgeKeys;
+                int[] oldChildren = edgeChildren;
+                edgeKeys = new long[oldKeys.length * 2];
+                edgeChildren = new int[oldKeys.length * 2];
+                Arrays.fill(edgeKeys, -1L);
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != -1L) {
+                        insertEdge(oldKeys[i], oldChildren[i]);
+                    }
+                }
+            }
+            insertEdge(((long) node << 16) | c, childNode);
+            edgeCount++;
+        }
+
+        private void insertEdge(long key, int childNode) {
+            int mask = edgeKeys.length - 1;
+            int slot = slot(key, mask);
+            while (edgeKeys[slot] != -1L) {
+                slot = (slot + 1) & mask;
+            }
+            edgeKeys[slot] = key;
+            edgeChildren[slot] = childNode;
+        }
+    }
+}
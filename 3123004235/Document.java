@@ -0,0 +1,190 @@
+// Document.java
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预处理后的文档（不可变）：清洗、分句、分词和同义词标准化只在构建时做一次，
+ * 之后可以反复参与相似度计算。分词使用 {@link DictionarySegmenter}，词语以 {@link TokenDictionary} 中的编号保存。
+ */
+public final class Document {
+    private final String cleanText;
+    private final List<String> sentences;
+    private final int[][] sentenceTokens;
+    private final SparseVector termVector;
+    private volatile SentenceIndex sentenceIndex;
+    private volatile MinHashLsh.BandIndex bandIndex;
+    private volatile long[] fingerprints;
+
+    private Document(String cleanText, List<String> sentences) {
+        this(cleanText, sentences, segment(sentences));
+    }
+
+    private Document(String cleanText, List<String> sentences, int[][] sentenceTokens) {
+        this.cleanText = cleanText;
+        this.sentences = Collections.unmodifiableList(sentences);
+        this.sentenceTokens = sentenceTokens;
+        int total = 0;
+        for (int[] tokens : sentenceTokens) {
+            total += tokens.length;
+        }
+
+        // 句末标点不属于任何词典词，全文分词结果等于各句分词结果的拼接，无需再对全文分词
+        int[] all = new int[total];
+        int offset = 0;
+        for (int[] tokens : sentenceTokens) {
+            System.arraycopy(tokens, 0, all, offset, tokens.length);
+            offset += tokens.length;
+        }
+        Arrays.sort(all);
+        this.termVector = SparseVector.ofSorted(all);
+    }
+
+    private static int[][] segment(List<String> sentences) {
+        StageEvent event = PipelineMetrics.begin();
+        DictionarySegmenter segmenter = DictionarySegmenter.shared();
+        int[][] tokens = new int[sentences.size()][];
+        long chars = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            String sentence = sentences.get(i);
+            tokens[i] = segmenter.segment(sentence);
+            chars += sentence.length();
+        }
+        PipelineMetrics.end(event, PipelineMetrics.Stage.SEGMENT, chars, tokens.length, 0, 0);
+        return tokens;
+    }
+
+    /**
+     * 由原始文本构建预处理文档
+     * @param text 原始文本
+     * @return 预处理文档
+     */
+    public static Document of(String text) {
+        String cleaned = TextProcessor.cleanText(text);
+        return new Document(cleaned, TextProcessor.splitIntoSentences(cleaned));
+    }
+
+    /**
+     * 流式读取文件构建预处理文档，读取时不保留原始文本，只保存分好的句子
+     * @param file 文件路径
+     * @return 预处理文档
+     * @throws IOException 读取失败时抛出异常
+     */
+    public static Document read(Path file) throws IOException {
+        List<String> sentences = new ArrayList<>();
+        try (SentenceReader reader = SentenceReader.open(file)) {
+            reader.forEachRemaining(sentences::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return ofSentences(sentences);
+    }
+
+    /**
+     * 由已分好的句子构建预处理文档
+     * @param sentences 句子列表
+     * @return 预处理文档
+     */
+    public static Document ofSentences(List<String> sentences) {
+        return new Document(String.join("", sentences), new ArrayList<>(sentences));
+    }
+
+    /**
+     * 由已分好的句子和已分好的词构建预处理文档，不再重新分词（用于从语料索引恢复文档）
+     * @param sentences 句子列表
+     * @param sentenceTokens 各句标准化后的词语编号
+     * @return 预处理文档
+     */
+    static Document ofTokens(List<String> sentences, int[][] sentenceTokens) {
+        if (sentences.size() != sentenceTokens.length) {
+            throw new IllegalArgumentException("句子数与分词结果数不一致");
+        }
+        return new Document(String.join("", sentences), new ArrayList<>(sentences), sentenceTokens);
+    }
+
+    public String getCleanText() {
+        return cleanText;
+    }
+
+    public List<String> getSentences() {
+        return sentences;
+    }
+
+    public int sentenceCount() {
+        return sentenceTokens.length;
+    }
+
+    /**
+     * @param index 句子下标
+     * @return 该句标准化后的词语编号（调用方不得修改）
+     */
+    int[] sentenceTokens(int index) {
+        return sentenceTokens[index];
+    }
+
+    /**
+     * @return 全文的词频向量，用于词频余弦相似度
+     */
+    SparseVector termVector() {
+        return termVector;
+    }
+
+    /**
+     * 作为原文参与比较时使用的句子倒排索引，首次使用时构建
+     * @return 句子倒排索引
+     */
+    SentenceIndex sentenceIndex() {
+        SentenceIndex index = sentenceIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = sentenceIndex;
+                if (index == null) {
+                    index = new SentenceIndex(this);
+                    sentenceIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 作为原文参与 MinHash/LSH 近似比较时使用的段哈希表，首次使用时构建；
+     * 换用不同参数的 LSH 时重新构建，只保留最近一次的
+     * @param lsh LSH 参数
+     * @return 段哈希表
+     */
+    MinHashLsh.BandIndex bandIndex(MinHashLsh lsh) {
+        MinHashLsh.BandIndex index = bandIndex;
+        if (index == null || !index.builtBy(lsh)) {
+            synchronized (this) {
+                index = bandIndex;
+                if (index == null || !index.builtBy(lsh)) {
+                    index = new MinHashLsh.BandIndex(lsh, this);
+                    bandIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Winnowing 指纹，首次使用时计算（调用方不得修改）
+     * @return 去重并升序排列的指纹
+     */
+    long[] fingerprints() {
+        long[] result = fingerprints;
+        if (result == null) {
+            result = Winnowing.fingerprints(this);
+            fingerprints = result;
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return sentences.isEmpty();
+    }
+}
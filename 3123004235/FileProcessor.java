@@ -14,13 +14,37 @@ public class FileProcessor {
      * @throws IOException 读取失败时抛出异常
      */
     public static String readFile(String filePath) throws IOException {
+        return decode(readBytes(filePath));
+    }
+
+    /**
+     * 按 UTF-8 解码文件内容，非法字节替换为替换字符
+     * @param data 文件内容
+     * @return 文本
+     */
+    static String decode(byte[] data) {
+        StageEvent event = PipelineMetrics.begin();
+        String text = new String(data, StandardCharsets.UTF_8);
+        PipelineMetrics.end(event, PipelineMetrics.Stage.DECODE, data.length, 0, 0, 0);
+        return text;
+    }
+
+    /**
+     * 读取文件的原始字节，不做解码
+     * @param filePath 文件路径
+     * @return 文件内容
+     * @throws IOException 读取失败时抛出异常
+     */
+    public static byte[] readBytes(String filePath) throws IOException {
         if (filePath == null || filePath.trim().isEmpty()) {
             throw new IllegalArgumentException("文件路径不能为空");
         }
 
+        StageEvent event = PipelineMetrics.begin();
         try {
             byte[] data = Files.readAllBytes(Paths.get(filePath));
-            return new String(data, StandardCharsets.UTF_8);
+            PipelineMetrics.end(event, PipelineMetrics.Stage.READ, data.length, 0, 0, 0);
+            return data;
         } catch (NoSuchFileException e) {
             throw new NoSuchFileException("文件不存在: " + filePath);
         } catch (AccessDeniedException e) {
@@ -0,0 +1,155 @@
+// IncrementalChecker.java
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 增量查重：同一篇抄袭文本被反复修改、反复查重时，只重新计算新增或改动的句子。
+ *
+ * 按标准化后的句子（清洗、分句后的文本）为键，保存每个句子的分词结果和“是否与原文某句匹配”的判断，
+ * 同时维护当前文本的匹配句数、句子总数、词频和与原文词频的点积。每次更新时把新的句子列表与上一次
+ * 按句子计数比较：消失的句子从统计中减去，新出现的句子才分词、查匹配，再计入统计。
+ * 最终结果与对新文本整篇重新计算完全一致。
+ *
+ * 非线程安全，每篇受检文档使用一个实例。
+ */
+public final class IncrementalChecker {
+    private final Document original;
+    private final SimilarityCalculator.SentenceMatcher matcher;
+    // 原文词频，按词语编号下标存放
+    private final int[] originalCounts;
+    private final double originalNorm;
+    private final DictionarySegmenter segmenter = DictionarySegmenter.shared();
+
+    // 当前文本中每个不同句子的出现次数和计算结果
+    private final Map<String, SentenceResult> sentences = new HashMap<>();
+    private int[] counts = new int[0];
+    private long sentenceCount;
+    private long matchCount;
+    private long dotProduct;
+    private long sumOfSquares;
+    private int lastComputed;
+
+    private static final class SentenceResult {
+        final int[] tokens;
+        final boolean matched;
+        int occurrences;
+
+        SentenceResult(int[] tokens, boolean matched) {
+            this.tokens = tokens;
+            this.matched = matched;
+        }
+    }
+
+    /**
+     * @param original 原文
+     */
+    public IncrementalChecker(Document original) {
+        if (original == null) {
+            throw new IllegalArgumentException("原文不能为空");
+        }
+        this.original = original;
+        this.matcher = new SimilarityCalculator.SentenceMatcher(original);
+        SparseVector vector = original.termVector();
+        int maxId = -1;
+        for (int i = 0; i < vector.size(); i++) {
+            maxId = Math.max(maxId, vector.idAt(i));
+        }
+        this.originalCounts = new int[maxId + 1];
+        for (int i = 0; i < vector.size(); i++) {
+            originalCounts[vector.idAt(i)] = vector.countAt(i);
+        }
+        this.originalNorm = vector.norm();
+    }
+
+    /**
+     * 用修改后的全文更新结果
+     * @param plagiarizedText 修改后的抄袭文本
+     * @return 相似度（0~1）
+     */
+    public double update(String plagiarizedText) {
+        return update(TextProcessor.splitIntoSentences(TextProcessor.cleanText(plagiarizedText)));
+    }
+
+    /**
+     * 用修改后的句子列表更新结果
+     * @param plagiarizedSentences 修改后的抄袭文本句子（已清洗、分句）
+     * @return 相似度（0~1）
+     */
+    public double update(List<String> plagiarizedSentences) {
+        Map<String, Integer> next = new HashMap<>();
+        for (String sentence : plagiarizedSentences) {
+            next.merge(sentence, 1, Integer::sum);
+        }
+
+        // 先减去消失或出现次数减少的句子
+        sentences.entrySet().removeIf(entry -> {
+            SentenceResult result = entry.getValue();
+            int remaining = next.getOrDefault(entry.getKey(), 0);
+            if (remaining < result.occurrences) {
+                apply(result, remaining - result.occurrences);
+            }
+            return remaining == 0;
+        });
+
+        // 再加上新出现或出现次数增加的句子，只有从未出现过的句子需要分词和匹配
+        lastComputed = 0;
+        try {
+            for (Map.Entry<String, Integer> entry : next.entrySet()) {
+                SentenceResult result = sentences.get(entry.getKey());
+                if (result == null) {
+                    int[] tokens = segmenter.segment(entry.getKey());
+                    result = new SentenceResult(tokens, matcher.isMatched(tokens));
+                    sentences.put(entry.getKey(), result);
+                    lastComputed++;
+                }
+                if (entry.getValue() > result.occurrences) {
+                    apply(result, entry.getValue() - result.occurrences);
+                }
+            }
+        } finally {
+            matcher.flush();
+        }
+        return getSimilarity();
+    }
+
+    // 把某个句子的出现次数改变 delta，同步更新匹配数、词频、点积和平方和
+    private void apply(SentenceResult result, int delta) {
+        result.occurrences += delta;
+        sentenceCount += delta;
+        if (result.matched) {
+            matchCount += delta;
+        }
+        for (int token : result.tokens) {
+            if (token >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(counts.length * 2, token + 1));
+            }
+            int originalCount = token < originalCounts.length ? originalCounts[token] : 0;
+            // (c + d)^2 - c^2 = d * (2c + d)
+            sumOfSquares += (long) delta * (2L * counts[token] + delta);
+            dotProduct += (long) delta * originalCount;
+            counts[token] += delta;
+        }
+    }
+
+    /**
+     * @return 当前文本的相似度（0~1），与整篇重新计算的结果一致
+     */
+    public double getSimilarity() {
+        if (original.isEmpty() || sentenceCount == 0) {
+            return 0.0;
+        }
+        double plagNorm = Math.sqrt(sumOfSquares);
+        double wordFreqSimilarity = originalNorm == 0 || plagNorm == 0
+                ? 0.0 : dotProduct / (originalNorm * plagNorm);
+        return SimilarityCalculator.blend((double) matchCount / sentenceCount, wordFreqSimilarity);
+    }
+
+    /**
+     * @return 上一次更新中重新分词和匹配的句子数
+     */
+    public int getLastComputed() {
+        return lastComputed;
+    }
+}
@@ -1,18 +1,74 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
 public class Main {
     public static void main(String[] args) {
         try {
+            // 批量模式：在同一进程内处理多对文件
+            if (args.length > 0 && "--batch".equals(args[0])) {
+                BatchChecker.run(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+
+            // 全体互查：一组文档两两比较
+            if (args.length > 0 && "--all-pairs".equals(args[0])) {
+                AllPairsChecker.run(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+
+            // 语料索引：参考语料预处理一次写入磁盘，查重时内存映射
+            if (args.length > 0 && "--index".equals(args[0])) {
+                CorpusIndex.run(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+
+            // 常驻服务：进程只启动一次，通过 HTTP 接收查重请求
+            if (args.length > 0 && "--serve".equals(args[0])) {
+                CheckServer.run(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+
+            // 编译词典：把文本词典写成可内存映射的二进制文件，运行时用 -Dplagiarism.dictionary 指定
+            if (args.length > 0 && "--compile-dictionary".equals(args[0])) {
+                if (args.length != 3 && args.length != 4) {
+                    System.err.println("使用方法: java -jar main.jar --compile-dictionary [同义词文件] [停用词文件] [输出文件]");
+                    System.exit(1);
+                }
+                Path stopWordFile = args.length == 4 ? Paths.get(args[2]) : null;
+                SynonymDictionary dictionary = SynonymDictionary.load(Paths.get(args[1]), stopWordFile);
+                dictionary.compile(Paths.get(args[args.length - 1]));
+                System.out.println("词典编译完成，同义词条数: " + dictionary.size());
+                return;
+            }
+
             // 检查命令行参数
             if (args.length != 3) {
                 System.err.println("使用方法: java -jar main.jar [原文文件路径] [抄袭文件路径] [结果文件路径]");
+                System.err.println("批量模式: java -jar main.jar --batch [清单文件] [结果文件] [线程数]");
+                System.err.println("全体互查: java -jar main.jar --all-pairs [--clusters 阈值] [目录] [结果文件] [线程数]");
+                System.err.println("语料索引: java -jar main.jar --index build [语料目录] [索引文件] | check [索引文件] [待查文件] [结果文件]");
+                System.err.println("查重服务: java -jar main.jar --serve [端口] [参考文件或目录] [最大并发数]");
+                System.err.println("编译词典: java -jar main.jar --compile-dictionary [同义词文件] [停用词文件] [输出文件]");
                 System.exit(1);
             }
 
-            // 读取文件内容
-            String originalText = FileProcessor.readFile(args[0]);
-            String plagiarizedText = FileProcessor.readFile(args[1]);
+            // 计算相似度，可通过 -Dplagiarism.parallelism 指定并行度加速超长文档；
+            // 串行时抄袭文本流式读取，不必整篇载入内存
+            int parallelism = Integer.getInteger("plagiarism.parallelism", 1);
+            StageEvent event = PipelineMetrics.begin();
+            Document original = Document.read(Paths.get(args[0]));
+            double similarity;
+            if (parallelism > 1) {
+                similarity = SimilarityCalculator.calculateSimilarity(
+                        original, Document.read(Paths.get(args[1])), parallelism);
+            } else {
+                try (SentenceReader plagiarized = SentenceReader.open(Paths.get(args[1]))) {
+                    similarity = SimilarityCalculator.calculateSimilarity(original, plagiarized);
+                }
+            }
 
-            // 计算相似度
-            double similarity = SimilarityCalculator.calculateSimilarity(originalText, plagiarizedText);
+            PipelineMetrics.end(event, PipelineMetrics.Stage.CHECK, 0, 0, 0, 0);
 
             // 格式化结果为百分比，保留两位小数
             String result = String.format("%.2f%%", similarity * 100);
@@ -0,0 +1,244 @@
+// MinHashLsh.java
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash + 局部敏感哈希（LSH）的近似候选句筛选，适用于整本书级别的原文。
+ *
+ * 每个句子取其相邻词语二元组的集合（只有一个词时取该词），计算 bands × rows 个 MinHash 值作为签名；
+ * 签名分为 bands 段，任意一段完全相同的两个句子才会被视为候选对，只有候选对才计算 LCS 相似度。
+ * 不直接使用单个词语，是因为句末标点等高频词几乎出现在每个句子中，会让大量无关句子落入同一个桶。
+ * 二元组集合 Jaccard 相似度为 s 的两句成为候选对的概率为 1 - (1 - s^rows)^bands：
+ * 段数越多、每段行数越少，召回率越高，但候选对越多、速度越慢。
+ *
+ * 这是可选的近似模式：它只会漏掉匹配句，不会多算匹配句，结果不高于精确值。
+ * 原文的段哈希表（{@link BandIndex}）缓存在 {@link Document} 上，同一篇原文与许多抄袭文本比较时只构建一次。
+ */
+public final class MinHashLsh {
+    private final int bands;
+    private final int rows;
+    private final long[] multipliers;
+    private final long[] offsets;
+
+    /**
+     * @param bands 段数
+     * @param rows 每段行数
+     */
+    public MinHashLsh(int bands, int rows) {
+        if (bands <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("段数和每段行数必须大于0");
+        }
+        this.bands = bands;
+        this.rows = rows;
+
+        // 固定种子，保证同样的参数得到同样的签名
+        SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+        int hashes = bands * rows;
+        this.multipliers = new long[hashes];
+        this.offsets = new long[hashes];
+        for (int i = 0; i < hashes; i++) {
+            multipliers[i] = random.nextLong() | 1L;
+            offsets[i] = random.nextLong();
+        }
+    }
+
+    public int getBands() {
+        return bands;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * 二元组集合 Jaccard 相似度为 jaccard 的两句成为候选对的概率，即该相似度下的期望召回率
+     * @param jaccard Jaccard 相似度
+     * @return 成为候选对的概率
+     */
+    public double collisionProbability(double jaccard) {
+        return 1.0 - Math.pow(1.0 - Math.pow(jaccard, rows), bands);
+    }
+
+    /**
+     * 近似计算句子级相似度
+     * @param original 原文
+     * @param plagiarized 抄袭文本
+     * @return 近似结果，包含相似度和实际比较的句子对数
+     */
+    public Result calculateSentenceSimilarity(Document original, Document plagiarized) {
+        int origCount = original.sentenceCount();
+        int plagCount = plagiarized.sentenceCount();
+        if (origCount == 0 || plagCount == 0) {
+            return new Result(0.0, 0, (long) origCount * plagCount);
+        }
+
+        BandIndex index = original.bandIndex(this);
+        long sentenceMask = index.sentenceMask;
+        long[] signature = new long[bands * rows];
+        int[] seen = new int[origCount];
+        int[] candidates = new int[origCount];
+        long comparedPairs = 0;
+        int totalMatches = 0;
+        for (int p = 0; p < plagCount; p++) {
+            int[] plagSent = plagiarized.sentenceTokens(p);
+            if (plagSent.length == 0) {
+                if (index.hasEmptySentence) {
+                    totalMatches++;
+                }
+                continue;
+            }
+
+            signature(plagSent, signature);
+            int candidateCount = 0;
+            int stamp = p + 1;
+            for (int b = 0; b < bands; b++) {
+                long key = bandHash(signature, b) & ~sentenceMask;
+                long[] entries = index.bandEntries[b];
+                int from = lowerBound(entries, key);
+                for (int i = from; i < entries.length && (entries[i] & ~sentenceMask) == key; i++) {
+                    int s = (int) (entries[i] & sentenceMask);
+                    if (seen[s] != stamp) {
+                        seen[s] = stamp;
+                        candidates[candidateCount++] = s;
+                    }
+                }
+            }
+
+            comparedPairs += candidateCount;
+            for (int c = 0; c < candidateCount; c++) {
+                int[] origSent = original.sentenceTokens(candidates[c]);
+                if (SimilarityCalculator.calculateTwoSentencesSimilarity(origSent, plagSent)
+                        >= SimilarityCalculator.SENTENCE_MATCH_THRESHOLD) {
+                    totalMatches++;
+                    break;
+                }
+            }
+        }
+
+        return new Result((double) totalMatches / plagCount, comparedPairs, (long) origCount * plagCount);
+    }
+
+    /**
+     * 原文的段哈希表：每段一个升序排列的 long 数组，高位为段哈希，低位为句子下标，
+     * 直接用基本类型排序，查询时按段哈希二分查找。段哈希被截去低位后，不同的段哈希偶尔会落入同一个桶，
+     * 只会多出几个需要计算 LCS 的候选句，不影响结果的正确性。
+     */
+    static final class BandIndex {
+        private final int bands;
+        private final int rows;
+        private final long sentenceMask;
+        private final long[][] bandEntries;
+        private final boolean hasEmptySentence;
+
+        BandIndex(MinHashLsh lsh, Document original) {
+            this.bands = lsh.bands;
+            this.rows = lsh.rows;
+            int origCount = original.sentenceCount();
+            int sentenceBits = 64 - Long.numberOfLeadingZeros(Math.max(origCount - 1, 1));
+            this.sentenceMask = (1L << sentenceBits) - 1;
+            this.bandEntries = new long[bands][origCount];
+
+            boolean empty = false;
+            long[] signature = new long[bands * rows];
+            for (int s = 0; s < origCount; s++) {
+                int[] tokens = original.sentenceTokens(s);
+                empty |= tokens.length == 0;
+                lsh.signature(tokens, signature);
+                for (int b = 0; b < bands; b++) {
+                    bandEntries[b][s] = (lsh.bandHash(signature, b) & ~sentenceMask) | s;
+                }
+            }
+            for (long[] entries : bandEntries) {
+                Arrays.sort(entries);
+            }
+            this.hasEmptySentence = empty;
+        }
+
+        /**
+         * @return 是否由相同参数的 LSH 构建（哈希函数由固定种子生成，参数相同即签名相同）
+         */
+        boolean builtBy(MinHashLsh lsh) {
+            return bands == lsh.bands && rows == lsh.rows;
+        }
+    }
+
+    private void signature(int[] tokens, long[] signature) {
+        Arrays.fill(signature, Long.MAX_VALUE);
+        if (tokens.length == 1) {
+            update(signature, tokens[0]);
+        }
+        for (int t = 1; t < tokens.length; t++) {
+            update(signature, mix(((long) tokens[t - 1] << 32) | tokens[t]));
+        }
+    }
+
+    private void update(long[] signature, long shingle) {
+        for (int i = 0; i < signature.length; i++) {
+            long h = mix(shingle * multipliers[i] + offsets[i]);
+            if (h < signature[i]) {
+                signature[i] = h;
+            }
+        }
+    }
+
+    private long bandHash(long[] signature, int band) {
+        long h = band;
+        for (int r = 0; r < rows; r++) {
+            h = mix(h * 31 + signature[band * rows + r]);
+        }
+        return h;
+    }
+
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xff51afd7ed558ccdL;
+        x = (x ^ (x >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return x ^ (x >>> 33);
+    }
+
+    private static int lowerBound(long[] keys, long key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 近似计算的结果
+     */
+    public static final class Result {
+        private final double similarity;
+        private final long comparedPairs;
+        private final long totalPairs;
+
+        Result(double similarity, long comparedPairs, long totalPairs) {
+            this.similarity = similarity;
+            this.comparedPairs = comparedPairs;
+            this.totalPairs = totalPairs;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+
+        /**
+         * @return 实际计算了 LCS 的句子对数
+         */
+        public long getComparedPairs() {
+            return comparedPairs;
+        }
+
+        /**
+         * @return 精确计算需要考虑的句子对总数
+         */
+        public long getTotalPairs() {
+            return totalPairs;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+// PipelineMetrics.java
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.EventType;
+
+/**
+ * 查重流程的分阶段观测：每个阶段发出 JFR 事件 {@link StageEvent}，并可在进程内累计计数和耗时直方图。
+ *
+ * 两者都关闭时（默认），{@link #begin()} 只做两次判断并返回 null，{@link #end} 遇到 null 直接返回，
+ * 不读时钟、不创建对象，对查重本身几乎没有开销。
+ *   - JFR 事件：飞行记录启用 plagiarism.Stage 事件时自动生效，可在运行中开启；
+ *   - 进程内统计：-Dplagiarism.metrics=true 时生效，{@link #snapshot()} 输出快照，
+ *     批量模式结束时打印到标准错误，查重服务通过 GET /metrics 返回。
+ *
+ * 用法：
+ * <pre>
+ *   StageEvent event = PipelineMetrics.begin();
+ *   ...
+ *   PipelineMetrics.end(event, PipelineMetrics.Stage.CLEAN, text.length(), 0, 0, 0);
+ * </pre>
+ */
+public final class PipelineMetrics {
+    /**
+     * 查重流程的阶段
+     */
+    public enum Stage {
+        /** 读取文件字节，输入大小为字节数 */
+        READ,
+        /** UTF-8 解码，输入大小为字节数 */
+        DECODE,
+        /** 清洗文本，输入大小为字符数 */
+        CLEAN,
+        /** 分句，输入大小为字符数 */
+        SPLIT,
+        /** 分词与同义词标准化，输入大小为字符数 */
+        SEGMENT,
+        /** 句子匹配，输入大小为原文句子数；流式计算时包含读取和分词 */
+        SENTENCE_MATCH,
+        /** 词频余弦相似度，输入大小为两个词频向量的不同词语数之和 */
+        COSINE,
+        /** 一次完整的查重（单对模式、批量模式的一对文件、服务的一个请求） */
+        CHECK
+    }
+
+    static final boolean ENABLED = Boolean.getBoolean("plagiarism.metrics");
+    private static final EventType EVENT_TYPE = EventType.getEventType(StageEvent.class);
+    // 直方图按耗时（纳秒）的二进制位数分桶，第 0 桶为 0，第 b 桶为 [2^(b-1), 2^b)
+    private static final int BUCKETS = 64;
+    private static final StageStats[] STATS = new StageStats[Stage.values().length];
+
+    static {
+        for (int i = 0; i < STATS.length; i++) {
+            STATS[i] = new StageStats();
+        }
+    }
+
+    private PipelineMetrics() {
+    }
+
+    private static final class StageStats {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder inputSize = new LongAdder();
+        final LongAdder sentences = new LongAdder();
+        final LongAdder pairs = new LongAdder();
+        final LongAdder pruned = new LongAdder();
+        final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            inputSize.reset();
+            sentences.reset();
+            pairs.reset();
+            pruned.reset();
+            for (int b = 0; b < BUCKETS; b++) {
+                histogram.set(b, 0);
+            }
+        }
+
+        /**
+         * @return 第 q 分位数所在桶的上界（纳秒），不超过最大值
+         */
+        long percentile(double q, long total) {
+            return Math.min(bucketBound(q, total), maxNanos.get());
+        }
+
+        private long bucketBound(double q, long total) {
+            long rank = (long) Math.ceil(q * total);
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += histogram.get(b);
+                if (seen >= rank && seen > 0) {
+                    return b == 0 ? 0 : b == BUCKETS - 1 ? Long.MAX_VALUE : 1L << b;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * 开始一个阶段
+     * @return 阶段事件，观测关闭时返回 null
+     */
+    static StageEvent begin() {
+        if (!ENABLED && !EVENT_TYPE.isEnabled()) {
+            return null;
+        }
+        StageEvent event = new StageEvent();
+        event.begin();
+        event.startNanos = System.nanoTime();
+        return event;
+    }
+
+    /**
+     * 结束一个阶段：计入进程内统计，并在飞行记录需要时提交事件
+     * @param event {@link #begin()} 的返回值，为 null 时什么也不做
+     * @param stage 阶段
+     * @param inputSize 输入大小
+     * @param sentences 句子数
+     * @param pairs 句子对数
+     * @param pruned 剪枝句子对数
+     */
+    static void end(StageEvent event, Stage stage, long inputSize, long sentences, long pairs, long pruned) {
+        if (event == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - event.startNanos;
+        event.end();
+        if (ENABLED) {
+            StageStats stats = STATS[stage.ordinal()];
+            stats.count.increment();
+            stats.totalNanos.add(elapsed);
+            stats.maxNanos.accumulate(elapsed);
+            stats.inputSize.add(inputSize);
+            stats.sentences.add(sentences);
+            stats.pairs.add(pairs);
+            stats.pruned.add(pruned);
+            stats.histogram.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(Math.max(elapsed, 0)));
+        }
+        if (event.shouldCommit()) {
+            event.stage = stage.name();
+            event.inputSize = inputSize;
+            event.sentences = sentences;
+            event.pairs = pairs;
+            event.pruned = pruned;
+            event.commit();
+        }
+    }
+
+    /**
+     * @return 是否开启了进程内统计
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * 清空进程内统计
+     */
+    public static void reset() {
+        for (StageStats stats : STATS) {
+            stats.reset();
+        }
+    }
+
+    /**
+     * 进程内统计的快照：每个发生过的阶段一行，以制表符分隔。
+     * 分位数取直方图桶的上界（不超过最大值），误差在两倍以内。
+     * @return 快照文本
+     */
+    public static String snapshot() {
+        StringBuilder builder = new StringBuilder();
+        if (!ENABLED) {
+            return builder.append("进程内统计未开启，启动时加 -Dplagiarism.metrics=true\n").toString();
+        }
+        builder.append("阶段\t次数\t总耗时ms\t平均ms\tp50ms\tp90ms\tp99ms\t最大ms\t输入大小\t句子数\t句子对数\t剪枝句子对数\n");
+        for (Stage stage : Stage.values()) {
+            StageStats stats = STATS[stage.ordinal()];
+            long count = stats.count.sum();
+            if (count == 0) {
+                continue;
+            }
+            long total = stats.totalNanos.sum();
+            builder.append(stage.name())
+                    .append('\t').append(count)
+                    .append('\t').append(millis(total))
+                    .append('\t').append(millis(total / count))
+                    .append('\t').append(millis(stats.percentile(0.5, count)))
+                    .append('\t').append(millis(stats.percentile(0.9, count)))
+                    .append('\t').append(millis(stats.percentile(0.99, count)))
+                    .append('\t').append(millis(stats.maxNanos.get()))
+                    .append('\t').append(stats.inputSize.sum())
+                    .append('\t').append(stats.sentences.sum())
+                    .append('\t').append(stats.pairs.sum())
+                    .append('\t').append(stats.pruned.sum())
+                    .append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
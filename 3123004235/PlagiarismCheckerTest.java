@@ -1,7 +1,28 @@
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 public class PlagiarismCheckerTest {
 
@@ -29,6 +50,10 @@ public class PlagiarismCheckerTest {
 
         // 空文本处理
         assertTrue(TextProcessor.splitIntoSentences("").isEmpty());
+
+        // 无标点的超长文本按最大长度切分
+        List<String> windows = TextProcessor.splitIntoSentences("一二三四五六七", 3);
+        assertEquals(Arrays.asList("一二三", "四五六", "七"), windows);
     }
 
     // 测试同义词替换功能
@@ -50,9 +75,9 @@ public class PlagiarismCheckerTest {
         double sim1 = SimilarityCalculator.calculateTwoSentencesSimilarity("今天天气晴朗", "今天天气晴朗");
         assertEquals(1.0, sim1, 0.001);
 
-        // 包含同义词的句子
+        // 包含同义词的句子：分词器识别“周天/星期天”“看电影/观看影片”并统一为同一代表词
         double sim2 = SimilarityCalculator.calculateTwoSentencesSimilarity("周天去看电影", "星期天去观看影片");
-        assertEquals(0.6, sim2, 0.1);
+        assertEquals(1.0, sim2, 0.001);
 
         // 完全不同的句子
         double sim3 = SimilarityCalculator.calculateTwoSentencesSimilarity("苹果是红色的", "香蕉是黄色的");
@@ -103,4 +128,728 @@ public class PlagiarismCheckerTest {
         double sim3 = SimilarityCalculator.calculateSimilarity(orig, plag3);
         assertTrue(sim3 < 0.1);
     }
-}
\ No newline at end of file
+
+    // 测试预处理文档：与直接传入文本的结果一致，且可重复使用
+    @Test
+    public void testDocumentSimilarity() {
+        String orig = "今天是周一，天气晴朗。我要去公园散步。";
+        String plag = "今日是星期一，天气晴。我要去花园行走。";
+        Document origDoc = Document.of(orig);
+        Document plagDoc = Document.of(plag);
+
+        assertEquals(3, origDoc.getSentences().size());
+        assertEquals(origDoc.getSentences().size(), origDoc.sentenceCount());
+        assertEquals(SimilarityCalculator.calculateSimilarity(orig, plag),
+                SimilarityCalculator.calculateSimilarity(origDoc, plagDoc), 0.0);
+        assertEquals(SimilarityCalculator.calculateSimilarity(origDoc, plagDoc),
+                SimilarityCalculator.calculateSimilarity(origDoc, plagDoc), 0.0);
+
+        // 空文档
+        assertEquals(0.0, SimilarityCalculator.calculateSimilarity(Document.of(""), plagDoc), 0.001);
+    }
+
+    // 测试位并行 LCS 与动态规划结果一致
+    @Test
+    public void testBitParallelLcs() {
+        assertEquals(4, SimilarityCalculator.calculateLCSLength(new int[]{1, 2, 3, 4}, new int[]{1, 9, 2, 9, 3, 9, 4}));
+        assertEquals(0, SimilarityCalculator.calculateLCSLength(new int[]{1, 2}, new int[]{3, 4}));
+        assertEquals(0, SimilarityCalculator.calculateLCSLength(new int[0], new int[]{3, 4}));
+
+        // 随机序列，长度跨越多个 64 位字
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int[] a = new int[random.nextInt(300)];
+            int[] b = new int[random.nextInt(300)];
+            int alphabet = 1 + random.nextInt(20);
+            for (int i = 0; i < a.length; i++) a[i] = random.nextInt(alphabet);
+            for (int i = 0; i < b.length; i++) b[i] = random.nextInt(alphabet);
+            assertEquals(SimilarityCalculator.calculateLCSLengthDp(a, b), SimilarityCalculator.calculateLCSLength(a, b));
+        }
+    }
+
+    // 测试倒排索引和上界剪枝筛选候选句后，句子级相似度与全量两两比较一致
+    @Test
+    public void testSentenceIndexMatchesFullScan() {
+        Random random = new Random(7);
+        // 统计计入本测试自己的统计对象，不受其他测试或并发调用累计的全局统计影响
+        SentenceMatchStats stats = new SentenceMatchStats();
+        long pairs = 0;
+        for (int round = 0; round < 20; round++) {
+            Document orig = Document.of(randomText(random, 40));
+            Document plag = Document.of(randomText(random, 40));
+            pairs += (long) orig.sentenceCount() * plag.sentenceCount();
+
+            int matches = 0;
+            for (int p = 0; p < plag.sentenceCount(); p++) {
+                double max = 0.0;
+                for (int o = 0; o < orig.sentenceCount(); o++) {
+                    max = Math.max(max, SimilarityCalculator.calculateTwoSentencesSimilarity(
+                            orig.sentenceTokens(o), plag.sentenceTokens(p)));
+                }
+                if (max >= 0.5) {
+                    matches++;
+                }
+            }
+            double expected = (double) matches / plag.sentenceCount();
+            assertEquals(expected, SimilarityCalculator.calculateSentenceSimilarity(orig, plag, stats), 0.0);
+
+            // 原文句子原样出现时走整句哈希表，不计算 LCS
+            for (int o = 0; o < orig.sentenceCount(); o++) {
+                assertTrue(orig.sentenceIndex().containsSentence(orig.sentenceTokens(o)));
+            }
+            SentenceMatchStats selfStats = new SentenceMatchStats();
+            assertEquals(1.0, SimilarityCalculator.calculateSentenceSimilarity(orig, orig, selfStats), 0.0);
+            assertEquals((long) orig.sentenceCount() * orig.sentenceCount(), selfStats.getExactSkipped());
+            assertEquals(0, selfStats.getLcsComputed());
+        }
+
+        // 每个配对要么被剪枝，要么计算了 LCS
+        assertEquals(pairs, stats.getSentencePairs());
+        assertTrue(stats.getBoundPruned() > 0);
+        assertTrue(stats.getLcsComputed() > 0);
+        assertEquals(stats.getSentencePairs(), stats.getExactSkipped()
+                + stats.getBoundPruned() + stats.getEarlyExitPruned() + stats.getLcsComputed());
+    }
+
+    // 测试并行计算与串行计算结果逐位一致
+    @Test
+    public void testParallelSentenceSimilarity() {
+        Random random = new Random(11);
+        Document orig = Document.of(randomText(random, 300));
+        Document plag = Document.of(randomText(random, 500));
+        double serial = SimilarityCalculator.calculateSimilarity(orig, plag);
+        assertEquals(serial, SimilarityCalculator.calculateSimilarity(orig, plag, 4), 0.0);
+        assertEquals(serial, SimilarityCalculator.calculateSimilarity(orig, plag, 1), 0.0);
+
+        // 各子任务的剪枝统计只计入本次调用的统计对象，与串行计算的统计相同
+        SentenceMatchStats serialStats = new SentenceMatchStats();
+        SentenceMatchStats parallelStats = new SentenceMatchStats();
+        SimilarityCalculator.calculateSentenceSimilarity(orig, plag, serialStats);
+        SimilarityCalculator.calculateSentenceSimilarity(orig, plag, 4, parallelStats);
+        assertEquals((long) orig.sentenceCount() * plag.sentenceCount(), parallelStats.getSentencePairs());
+        assertEquals(serialStats.toString(), parallelStats.toString());
+    }
+
+    // 测试阈值判定与精确相似度的结论一致，精确计算时上下界等于相似度
+    @Test
+    public void testCheckThreshold() {
+        Random random = new Random(13);
+        for (int round = 0; round < 20; round++) {
+            Document orig = Document.of(randomText(random, 30));
+            Document plag = Document.of(randomText(random, 30));
+            double similarity = SimilarityCalculator.calculateSimilarity(orig, plag);
+            for (double threshold : new double[]{0.2, 0.5, 0.8, similarity}) {
+                SimilarityCalculator.ThresholdResult result = SimilarityCalculator.checkThreshold(orig, plag, threshold);
+                assertEquals(similarity >= threshold, result.isAbove());
+                assertTrue(result.getLowerBound() <= similarity && similarity <= result.getUpperBound());
+                if (result.isExact()) {
+                    assertEquals(similarity, result.getLowerBound(), 0.0);
+                }
+            }
+        }
+    }
+
+    // 测试语料索引：从映射的索引计算的结果与直接预处理文本的结果一致
+    @Test
+    public void testCorpusIndex() throws IOException {
+        Random random = new Random(17);
+        List<Path> files = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        Path indexFile = Files.createTempFile("corpus", ".idx");
+        try {
+            for (int i = 0; i < 3; i++) {
+                String text = randomText(random, 20);
+                Path file = Files.createTempFile("corpus", ".txt");
+                Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+                files.add(file);
+                texts.add(text);
+            }
+            CorpusIndex.build(files, indexFile);
+
+            CorpusIndex index = CorpusIndex.open(indexFile);
+            assertEquals(3, index.documentCount());
+            Document plag = Document.of(texts.get(1) + randomText(random, 5));
+            CorpusIndex.Query query = index.newQuery(plag);
+            for (int doc = 0; doc < 3; doc++) {
+                Document orig = Document.of(texts.get(doc));
+                assertEquals(files.get(doc).toString(), index.documentName(doc));
+                assertEquals(orig.getSentences(), index.document(doc).getSentences());
+                assertEquals(orig.termVector().cosine(plag.termVector()), query.cosine(doc), 0.0);
+                assertEquals(Winnowing.containment(orig.fingerprints(), plag.fingerprints()), query.containment(doc), 0.0);
+                assertEquals(SimilarityCalculator.calculateSimilarity(orig, plag), query.similarity(doc), 0.0);
+            }
+
+            // 检索数据保存在索引旁的 .bm25 文件中，再次打开时直接映射，结果与内存中构建的一致
+            CorpusSearcher.open(index, indexFile);
+            assertTrue(Files.exists(CorpusSearcher.dataFileOf(indexFile)));
+            long written = Files.getLastModifiedTime(CorpusSearcher.dataFileOf(indexFile)).toMillis();
+            CorpusSearcher mapped = CorpusSearcher.open(index, indexFile);
+            assertEquals(written, Files.getLastModifiedTime(CorpusSearcher.dataFileOf(indexFile)).toMillis());
+            assertArrayEquals(CorpusSearcher.of(index).scoreAll(plag), mapped.scoreAll(plag), 0.0);
+            assertEquals(files.get(1).toString(), mapped.search(plag, 3).get(0).getName());
+
+            // 索引重建后检索数据随之重建
+            CorpusIndex.build(files.subList(0, 2), indexFile);
+            CorpusSearcher rebuilt = CorpusSearcher.open(CorpusIndex.open(indexFile), indexFile);
+            assertEquals(2, rebuilt.documentCount());
+            assertEquals(files.get(1).toString(), rebuilt.search(plag, 1).get(0).getName());
+        } finally {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(indexFile);
+            Files.deleteIfExists(CorpusSearcher.dataFileOf(indexFile));
+        }
+    }
+
+    // 测试语料检索：剪枝后的 BM25 前 K 名与逐篇计算一致，抄袭来源排在第一
+    @Test
+    public void testCorpusSearcher() {
+        Random random = new Random(19);
+        List<String> names = new ArrayList<>();
+        List<Document> documents = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        for (int d = 0; d < 200; d++) {
+            StringBuilder text = new StringBuilder();
+            for (int s = 0; s < 10; s++) {
+                for (int i = 0; i < 10; i++) {
+                    text.append((char) (0x4e00 + random.nextInt(2000)));
+                }
+                text.append('。');
+            }
+            names.add("doc" + d);
+            texts.add(text.toString());
+            documents.add(Document.of(text.toString()));
+        }
+        CorpusSearcher searcher = CorpusSearcher.of(names, documents);
+
+        Document query = Document.of(texts.get(42).substring(0, 55) + randomText(random, 3));
+        double[] all = searcher.scoreAll(query);
+        Arrays.sort(all);
+        List<double[]> top = searcher.topBm25(query, 5);
+        assertEquals(5, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(all[all.length - 1 - i], top.get(i)[0], 1e-9);
+        }
+        assertEquals("doc42", searcher.search(query, 5).get(0).getName());
+
+        // 多个来源拼接的查询、不同的 K：剪枝结果的得分与逐篇计算的前 K 名一致
+        for (int round = 0; round < 20; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int part = 0; part < 3; part++) {
+                String source = texts.get(random.nextInt(texts.size()));
+                int start = random.nextInt(50);
+                text.append(source, start, start + 20 + random.nextInt(30));
+            }
+            Document mixed = Document.of(text.toString());
+            double[] expected = searcher.scoreAll(mixed);
+            Arrays.sort(expected);
+            for (int k : new int[]{1, 3, 10}) {
+                List<double[]> pruned = searcher.topBm25(mixed, k);
+                for (int i = 0; i < pruned.size(); i++) {
+                    assertEquals(expected[expected.length - 1 - i], pruned.get(i)[0], 1e-9);
+                }
+            }
+        }
+    }
+
+    // 测试全体互查：矩阵与逐对计算一致，相互抄袭的文档聚为一组
+    @Test
+    public void testAllPairsChecker() throws IOException {
+        String[] texts = {
+                "今天是星期天，天气晴，今天晚上我要去看电影。",
+                "今天是周天，天气晴朗，我晚上要去看电影。",
+                "我们明天去公园散步吧。学校里有很多学生。",
+                "这是一段与其他文本完全无关的内容。结构也不同。"
+        };
+        List<String> paths = new ArrayList<>();
+        try {
+            for (String text : texts) {
+                Path file = Files.createTempFile("submission", ".txt");
+                Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+                paths.add(file.toString());
+            }
+            AllPairsChecker checker = new AllPairsChecker(paths, 2);
+            double[][] matrix = checker.matrix();
+            double expected = SimilarityCalculator.calculateSimilarity(Document.of(texts[0]), Document.of(texts[1]));
+            assertEquals(expected, matrix[0][1], 0.0);
+            expected = SimilarityCalculator.calculateSimilarity(Document.of(texts[1]), Document.of(texts[0]));
+            assertEquals(expected, matrix[1][0], 0.0);
+            assertTrue(Double.isNaN(matrix[0][3]));
+
+            List<List<String>> groups = checker.clusters(0.6);
+            assertEquals(1, groups.size());
+            assertEquals(Arrays.asList(paths.get(0), paths.get(1)), groups.get(0));
+
+            // 文档数较少时，所有文档共有的指纹也用于生成候选对：三篇完全相同的提交两两都是候选对
+            AllPairsChecker identical = new AllPairsChecker(Arrays.asList(paths.get(0), paths.get(0), paths.get(0)), 2);
+            assertEquals(3, identical.candidatePairs().size());
+            assertEquals(1.0, identical.matrix()[0][2], 0.0);
+            List<List<String>> identicalGroups = identical.clusters(0.6);
+            assertEquals(1, identicalGroups.size());
+            assertEquals(3, identicalGroups.get(0).size());
+        } finally {
+            for (String path : paths) {
+                Files.deleteIfExists(java.nio.file.Paths.get(path));
+            }
+        }
+    }
+
+    // 生成由少量常用字组成的随机文本，句子之间有较多重合
+    private static String randomText(java.util.Random random, int sentences) {
+        String chars = "今天气很好我要去公园散步学校上课花星期一";
+        String punctuation = "。！？，";
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            int length = 1 + random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                text.append(chars.charAt(random.nextInt(chars.length())));
+            }
+            text.append(punctuation.charAt(random.nextInt(punctuation.length())));
+        }
+        return text.toString();
+    }
+
+    // 在生成的语料上比较近似模式与精确模式：统计召回率和实际比较的句子对比例
+    @Test
+    public void testMinHashLshRecall() {
+        Random random = new Random(2024);
+        StringBuilder orig = new StringBuilder();
+        String[] origSentences = new String[400];
+        for (int i = 0; i < origSentences.length; i++) {
+            origSentences[i] = randomSentence(random);
+            orig.append(origSentences[i]).append('。');
+        }
+
+        // 一半句子抄自原文并做少量改动，另一半是无关句子
+        StringBuilder plag = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            if (i % 2 == 0) {
+                plag.append(edit(origSentences[random.nextInt(origSentences.length)], random));
+            } else {
+                plag.append(randomSentence(random));
+            }
+            plag.append('。');
+        }
+
+        Document origDoc = Document.of(orig.toString());
+        Document plagDoc = Document.of(plag.toString());
+        double exact = SimilarityCalculator.calculateSentenceSimilarity(origDoc, plagDoc);
+
+        MinHashLsh lsh = new MinHashLsh(20, 2);
+        MinHashLsh.Result approx = lsh.calculateSentenceSimilarity(origDoc, plagDoc);
+        double recall = approx.getSimilarity() / exact;
+        double pairFraction = (double) approx.getComparedPairs() / approx.getTotalPairs();
+
+        assertTrue(exact > 0.4, "生成的语料应有约一半句子匹配");
+        assertTrue(approx.getSimilarity() <= exact, "近似模式不会多算匹配句");
+        assertTrue(recall >= 0.95, "召回率过低: " + recall);
+        assertTrue(pairFraction < 0.2, "候选对比例过高: " + pairFraction);
+
+        // 段数更少时更快但召回率更低
+        MinHashLsh fast = new MinHashLsh(4, 4);
+        MinHashLsh.Result fastResult = fast.calculateSentenceSimilarity(origDoc, plagDoc);
+        assertTrue(fastResult.getComparedPairs() <= approx.getComparedPairs());
+        assertTrue(fast.collisionProbability(0.5) < lsh.collisionProbability(0.5));
+    }
+
+    private static String randomSentence(Random random) {
+        StringBuilder sentence = new StringBuilder();
+        int length = 8 + random.nextInt(13);
+        for (int i = 0; i < length; i++) {
+            sentence.append((char) (0x4E00 + random.nextInt(3000)));
+        }
+        return sentence.toString();
+    }
+
+    private static String edit(String sentence, Random random) {
+        StringBuilder edited = new StringBuilder(sentence);
+        int edits = 1 + random.nextInt(3);
+        for (int i = 0; i < edits; i++) {
+            edited.setCharAt(random.nextInt(edited.length()), (char) (0x4E00 + random.nextInt(3000)));
+        }
+        return edited.toString();
+    }
+
+    // 测试 Winnowing 指纹算法
+    @Test
+    public void testWinnowingSimilarity() {
+        String orig = "今天是周一，天气晴朗。我要去公园散步，然后去图书馆看书。";
+        double same = SimilarityCalculator.calculateSimilarity(orig, orig, SimilarityAlgorithm.WINNOWING);
+        assertEquals(1.0, same, 0.001);
+
+        // 抄袭文本只截取原文的一部分时包含度仍然很高
+        String part = "我要去公园散步，然后去图书馆看书。";
+        assertTrue(SimilarityCalculator.calculateSimilarity(orig, part, SimilarityAlgorithm.WINNOWING) > 0.5);
+
+        String unrelated = "这是一段与原文完全无关的文本。内容和结构都不同。";
+        assertTrue(SimilarityCalculator.calculateSimilarity(orig, unrelated, SimilarityAlgorithm.WINNOWING) < 0.1);
+        assertEquals(0.0, SimilarityCalculator.calculateSimilarity("", orig, SimilarityAlgorithm.WINNOWING), 0.001);
+    }
+
+    // 测试词典分词器：多字同义词统一、停用词过滤、空白忽略
+    @Test
+    public void testDictionarySegmenter() {
+        DictionarySegmenter segmenter = DictionarySegmenter.shared();
+        assertArrayEquals(segmenter.segment("土豆"), segmenter.segment("马铃薯"));
+        assertArrayEquals(segmenter.segment("迅速"), segmenter.segment("快速"));
+        assertArrayEquals(segmenter.segment("吃土豆"), segmenter.segment("我们 吃 马铃薯"));
+        assertEquals(0, segmenter.segment("我们的").length);
+        assertEquals(2, segmenter.segment("测试").length);
+        // 代表词取组内最短的词，单字不会被替换成双字词
+        assertArrayEquals(segmenter.segment("走"), segmenter.segment("行走"));
+        assertEquals(1, segmenter.segment("走").length);
+        assertEquals(1, segmenter.segment("钞票").length);
+        // 与 segmentSentence 一致，控制字符和空白一样被忽略
+        assertArrayEquals(segmenter.segment("测试"), segmenter.segment("测\u0001试\u001f"));
+    }
+
+    // 测试字符分类表：清洗、分句、分词与逐字查集合的原实现在随机文本上结果一致
+    @Test
+    public void testCharFlagsEquivalence() {
+        // 覆盖干扰字符、标点、停用词、各类空白和控制字符以及不被 isWhitespace 视为空白的 \u00a0
+        String alphabet = "丽医腥龘靐瑒。！？；：，.!?;:的了是我你他们测试文本abc \t\n\r\u000b\u001f\u3000\u2028\u00a0\u0085";
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = builder.toString();
+            String cleaned = TextProcessor.cleanText(text);
+            assertEquals(referenceCleanText(text), cleaned, text);
+            List<String> sentences = TextProcessor.splitIntoSentences(cleaned);
+            assertEquals(referenceSplitIntoSentences(cleaned), sentences, cleaned);
+            assertEquals(referenceSegmentSentence(text), TextProcessor.segmentSentence(text), text);
+        }
+    }
+
+    // 以下为按字符集合逐字判断的原实现，作为字符分类表的参照
+    private static final String REFERENCE_NOISE = "丽医腥龘靐瑒";
+    private static final String REFERENCE_PUNCTUATION = "。！？；：，.!?;:";
+
+    private static String referenceCleanText(String text) {
+        if (text.trim().isEmpty()) {
+            return "";
+        }
+        StringBuilder cleaned = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            if (REFERENCE_NOISE.indexOf(c) >= 0) {
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                if (cleaned.length() > 0 && !Character.isWhitespace(cleaned.charAt(cleaned.length() - 1))) {
+                    cleaned.append(' ');
+                }
+            } else {
+                cleaned.append(c);
+            }
+        }
+        return cleaned.toString().trim();
+    }
+
+    private static List<String> referenceSplitIntoSentences(String text) {
+        List<String> sentences = new ArrayList<>();
+        StringBuilder currentSentence = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            currentSentence.append(c);
+            if (REFERENCE_PUNCTUATION.indexOf(c) >= 0) {
+                String sentence = currentSentence.toString().trim();
+                if (!sentence.isEmpty()) {
+                    sentences.add(sentence);
+                }
+                currentSentence.setLength(0);
+            }
+        }
+        String lastSentence = currentSentence.toString().trim();
+        if (!lastSentence.isEmpty()) {
+            sentences.add(lastSentence);
+        }
+        return sentences;
+    }
+
+    private static List<String> referenceSegmentSentence(String sentence) {
+        List<String> words = new ArrayList<>();
+        for (char c : sentence.toCharArray()) {
+            String word = String.valueOf(c);
+            if (!SynonymDictionary.shared().isStopWord(word) && !word.trim().isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // 测试词典：文本加载、编译后内存映射打开，查询结果与内置同义词表一致
+    @Test
+    public void testSynonymDictionary() throws IOException {
+        SynonymDictionary builtin = SynonymDictionary.builtin();
+        for (Map.Entry<String, String> entry : TextProcessor.getSynonymMap().entrySet()) {
+            assertEquals(entry.getValue(), builtin.lookup(entry.getKey()));
+        }
+        assertNull(builtin.lookup("不存在的词"));
+        assertTrue(builtin.isStopWord("的"));
+
+        Path synonymFile = Files.createTempFile("synonyms", ".txt");
+        Path stopWordFile = Files.createTempFile("stopwords", ".txt");
+        Path compiledFile = Files.createTempFile("dictionary", ".bin");
+        try {
+            Files.write(synonymFile, Arrays.asList("# 注释", "土豆\t马铃薯", "迅速 快速", "迅速 飞快"), StandardCharsets.UTF_8);
+            Files.write(stopWordFile, Arrays.asList("的", "了"), StandardCharsets.UTF_8);
+            SynonymDictionary.load(synonymFile, stopWordFile).compile(compiledFile);
+
+            SynonymDictionary compiled = SynonymDictionary.open(compiledFile);
+            assertEquals(2, compiled.size());
+            assertEquals("马铃薯", compiled.lookup("土豆"));
+            // 重复的词以最后一次出现为准
+            assertEquals("飞快", compiled.lookup("迅速"));
+            assertNull(compiled.lookup("土"));
+            assertTrue(compiled.isStopWord("了"));
+            assertFalse(compiled.isStopWord("是"));
+
+            // 分词器直接使用编译文件中的字典树，结果与内存中构建的词典一致
+            SynonymDictionary loaded = SynonymDictionary.load(synonymFile, stopWordFile);
+            DictionarySegmenter fromFile = new DictionarySegmenter(compiled);
+            DictionarySegmenter fromMemory = new DictionarySegmenter(loaded);
+            String text = "我吃了土豆，他迅速吃了马铃薯的皮，飞快地走了";
+            assertArrayEquals(fromMemory.segment(text), fromFile.segment(text));
+            assertArrayEquals(fromFile.segment("土豆"), fromFile.segment("马铃薯"));
+            assertArrayEquals(fromFile.segment("迅速"), fromFile.segment("飞快"));
+            assertEquals(0, fromFile.segment("的了").length);
+        } finally {
+            Files.deleteIfExists(synonymFile);
+            Files.deleteIfExists(stopWordFile);
+            Files.deleteIfExists(compiledFile);
+        }
+    }
+
+    // 测试流式分句：跨读缓冲区边界的多字节字符、空白、噪声字符与整篇分句结果一致，流式相似度与整篇计算一致
+    @Test
+    public void testSentenceReader() {
+        StringBuilder builder = new StringBuilder("  \t\n");
+        String[] pieces = {"今天是星期天，", "天气晴，今天晚上我要去看电影。", "  hello   world!! ", "##@@", "\r\n", "他说：", "没有标点的一段文字"};
+        for (int i = 0; builder.length() < 200_000; i++) {
+            builder.append(pieces[i % pieces.length]).append(i % 7 == 0 ? "\n\n" : "");
+        }
+        String text = builder.append("结尾没有标点  ").toString();
+        List<String> expected = TextProcessor.splitIntoSentences(TextProcessor.cleanText(text));
+
+        List<String> actual = new ArrayList<>();
+        try (SentenceReader reader = new SentenceReader(Channels.newChannel(
+                new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))), TextProcessor.MAX_SENTENCE_LENGTH)) {
+            reader.forEachRemaining(actual::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        assertEquals(expected, actual);
+
+        Document original = Document.of("今天是星期天，天气晴，今天晚上我要去看电影。");
+        assertEquals(SimilarityCalculator.calculateSimilarity(original, Document.of(text)),
+                SimilarityCalculator.calculateSimilarity(original, actual.iterator()), 1e-12);
+        assertEquals(0.0, SimilarityCalculator.calculateSimilarity(original, Collections.emptyIterator()), 0.0);
+    }
+
+    // 测试查重服务：两段文本比较、参考文档比较、参考文档检索，结果与直接计算一致
+    @Test
+    public void testCheckServer() throws IOException {
+        String original = "今天是星期天，天气晴，今天晚上我要去看电影。";
+        String plagiarized = "今天是周天，天气晴朗，我晚上要去看电影。";
+        Path reference = Files.createTempFile("reference", ".txt");
+        Files.write(reference, original.getBytes(StandardCharsets.UTF_8));
+        CheckServer server = new CheckServer(0, Arrays.asList(reference.toString()), 2);
+        server.start();
+        try {
+            String expected = String.format("\"result\":\"%.2f%%\"",
+                    SimilarityCalculator.calculateSimilarity(Document.of(original), Document.of(plagiarized)) * 100);
+            String body = "plagiarized=" + URLEncoder.encode(plagiarized, StandardCharsets.UTF_8);
+
+            assertTrue(post(server, "original=" + URLEncoder.encode(original, StandardCharsets.UTF_8) + "&" + body)
+                    .contains(expected));
+            assertTrue(post(server, "reference=" + reference.getFileName() + "&" + body).contains(expected));
+            String hits = post(server, "top=1&" + body);
+            assertTrue(hits.contains("\"reference\":\"" + reference.getFileName() + "\""));
+            assertTrue(hits.contains("\"timings\""));
+            assertTrue(post(server, "reference=missing.txt&" + body).startsWith("404 "));
+            assertTrue(post(server, body).startsWith("400 "));
+        } finally {
+            server.stop();
+            Files.deleteIfExists(reference);
+        }
+    }
+
+    // 测试查重服务重新加载参考目录：新增的文件可用，加载失败时继续使用原来的参考文档
+    @Test
+    public void testCheckServerReload() throws IOException {
+        Path directory = Files.createTempDirectory("references");
+        Path first = directory.resolve("first.txt");
+        Path second = directory.resolve("second.txt");
+        Files.write(first, "今天是星期天，天气晴。".getBytes(StandardCharsets.UTF_8));
+        CheckServer server = new CheckServer(0, directory.toString(), 2);
+        server.start();
+        try {
+            String body = "plagiarized=" + URLEncoder.encode("我们明天去公园散步吧。", StandardCharsets.UTF_8);
+            assertTrue(post(server, "reference=second.txt&" + body).startsWith("404 "));
+
+            Files.write(second, "我们明天去公园散步吧。".getBytes(StandardCharsets.UTF_8));
+            assertEquals("200 {\"status\":\"ok\",\"references\":2}", post(server, "/reload", ""));
+            assertTrue(post(server, "reference=second.txt&" + body).contains("\"result\":\"100.00%\""));
+
+            // 目录被删除后重新加载失败，原来的参考文档仍然可用
+            Files.delete(first);
+            Files.delete(second);
+            Files.delete(directory);
+            assertTrue(post(server, "/reload", "").startsWith("500 "));
+            assertTrue(post(server, "reference=second.txt&" + body).contains("\"result\":\"100.00%\""));
+        } finally {
+            server.stop();
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static String post(CheckServer server, String form) throws IOException {
+        return post(server, "/check", form);
+    }
+
+    private static String post(CheckServer server, String path, String form) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)
+                new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        connection.getOutputStream().write(form.getBytes(StandardCharsets.UTF_8));
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return status + " " + new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // 测试结果缓存：键区分内容、方向和算法，内存级按 LRU 淘汰，磁盘级在新实例中仍然有效
+    @Test
+    public void testResultCache() throws IOException {
+        byte[] a = ResultCache.digest("原文".getBytes(StandardCharsets.UTF_8));
+        byte[] b = ResultCache.digest("抄袭文本".getBytes(StandardCharsets.UTF_8));
+        String key = ResultCache.key(a, b, SimilarityAlgorithm.LCS_COSINE);
+        assertEquals(key, ResultCache.key(a.clone(), b.clone(), SimilarityAlgorithm.LCS_COSINE));
+        assertFalse(key.equals(ResultCache.key(b, a, SimilarityAlgorithm.LCS_COSINE)));
+        assertFalse(key.equals(ResultCache.key(a, b, SimilarityAlgorithm.WINNOWING)));
+
+        ResultCache memory = new ResultCache(2, null);
+        memory.put("k1", 0.1);
+        memory.put("k2", 0.2);
+        assertEquals(0.1, memory.get("k1"), 0.0);
+        memory.put("k3", 0.3);
+        assertNull(memory.get("k2"));
+        assertEquals(0.3, memory.get("k3"), 0.0);
+        assertNull(new ResultCache(0, null).get("k1"));
+
+        Path directory = Files.createTempDirectory("cache");
+        try {
+            new ResultCache(1, directory).put(key, 0.75);
+            ResultCache restarted = new ResultCache(1, directory);
+            assertEquals(0.75, restarted.get(key), 0.0);
+            assertEquals(1, restarted.getHits());
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    // 测试增量查重：随机增删改句子后结果与整篇重新计算一致，且只重新计算改动的句子
+    @Test
+    public void testIncrementalChecker() {
+        String[] pool = {"今天是星期天。", "天气晴，", "今天晚上我要去看电影。", "我们吃土豆。", "他说：", "没有标点的一段",
+                "今天是周天。", "天气晴朗，", "我晚上要去看电影！", "大家吃马铃薯。", "。", "hello world!"};
+        Document original = Document.of("今天是星期天，天气晴，今天晚上我要去看电影。我们吃土豆。");
+        IncrementalChecker checker = new IncrementalChecker(original);
+        Random random = new Random(42);
+        List<String> draft = new ArrayList<>();
+        for (int round = 0; round < 50; round++) {
+            int edits = 1 + random.nextInt(3);
+            for (int e = 0; e < edits; e++) {
+                int op = random.nextInt(3);
+                if (op == 0 || draft.isEmpty()) {
+                    draft.add(random.nextInt(draft.size() + 1), pool[random.nextInt(pool.length)]);
+                } else if (op == 1) {
+                    draft.remove(random.nextInt(draft.size()));
+                } else {
+                    draft.set(random.nextInt(draft.size()), pool[random.nextInt(pool.length)]);
+                }
+            }
+            String text = String.join("", draft);
+            assertEquals(SimilarityCalculator.calculateSimilarity(original, Document.of(text)), checker.update(text), 1e-12);
+        }
+
+        String text = String.join("", draft);
+        checker.update(text);
+        assertEquals(0, checker.getLastComputed());
+        checker.update(text + "全新的一句话。");
+        assertEquals(1, checker.getLastComputed());
+        assertEquals(0.0, checker.update(""), 0.0);
+    }
+
+    // 测试阶段事件：飞行记录开启 plagiarism.Stage 后，查重各阶段都会产生带规模信息的事件
+    @Test
+    public void testStageEvents() throws IOException {
+        Path file = Files.createTempFile("stages", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("plagiarism.Stage");
+            recording.start();
+            SimilarityCalculator.calculateSimilarity("今天是星期天，天气晴，今天晚上我要去看电影。", "今天是周天，天气晴朗，我晚上要去看电影。");
+            recording.stop();
+            recording.dump(file);
+
+            Map<String, RecordedEvent> stages = new HashMap<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                stages.put(event.getString("stage"), event);
+            }
+            for (String stage : Arrays.asList("CLEAN", "SPLIT", "SEGMENT", "SENTENCE_MATCH", "COSINE")) {
+                assertTrue(stages.containsKey(stage));
+            }
+            assertEquals(3, stages.get("SENTENCE_MATCH").getLong("sentences"));
+            assertEquals(9, stages.get("SENTENCE_MATCH").getLong("pairs"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // 测试批量模式：清单文件、目录两两组合，缺失的文件记为错误行而不中断整批
+    @Test
+    public void testBatchChecker() throws IOException {
+        String original = "今天是星期天，天气晴，今天晚上我要去看电影。";
+        String plagiarized = "今天是周天，天气晴朗，我晚上要去看电影。";
+        String expected = String.format("%.2f%%",
+                SimilarityCalculator.calculateSimilarity(Document.of(original), Document.of(plagiarized)) * 100);
+        Path directory = Files.createTempDirectory("batch");
+        try {
+            Path originals = Files.createDirectory(directory.resolve("orig"));
+            Path submissions = Files.createDirectory(directory.resolve("plag"));
+            Path orig = Files.write(originals.resolve("a.txt"), original.getBytes(StandardCharsets.UTF_8));
+            Path plag1 = Files.write(submissions.resolve("b.txt"), plagiarized.getBytes(StandardCharsets.UTF_8));
+            Path plag2 = Files.write(submissions.resolve("c.txt"), original.getBytes(StandardCharsets.UTF_8));
+            Path missing = directory.resolve("missing.txt");
+
+            Path manifest = Files.write(directory.resolve("manifest.txt"), Arrays.asList(
+                    "# 注释",
+                    orig + "\t" + plag1,
+                    orig + "\t" + missing), StandardCharsets.UTF_8);
+            Path output = directory.resolve("manifest-result.txt");
+            assertEquals(2, new BatchChecker(2).checkManifest(manifest.toString(), output.toString()));
+            List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+            assertTrue(lines.contains(orig + "\t" + plag1 + "\t" + expected));
+            assertTrue(lines.contains(orig + "\t" + missing + "\t错误: 文件不存在: " + missing));
+
+            output = directory.resolve("dirs-result.txt");
+            assertEquals(2, new BatchChecker(2).checkDirectories(originals.toString(), submissions.toString(), output.toString()));
+            lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+            assertTrue(lines.contains(orig + "\t" + plag1 + "\t" + expected));
+            assertTrue(lines.contains(orig + "\t" + plag2 + "\t100.00%"));
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
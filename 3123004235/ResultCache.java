@@ -0,0 +1,240 @@
+// ResultCache.java
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按内容寻址的查重结果缓存：键由两份输入内容的 SHA-256 摘要和算法版本戳组成，
+ * 同样的文件重复提交、修改无关配置后重跑时直接返回结果，不再解码文本和预处理。
+ *
+ * 版本戳涵盖算法、加权系数、句子匹配阈值、分句长度、指纹参数和同义词/停用词词典的内容，
+ * 其中任何一项改变都会得到不同的键，旧结果自然失效。修改计算逻辑时应递增 {@link #ALGORITHM_VERSION}。
+ *
+ * 分两级：
+ *   - 内存级：按访问顺序淘汰的 LRU 表，条目数有上限；
+ *   - 磁盘级（可选）：每个结果一个小文件，重启后仍然有效，写入时先写临时文件再原子改名。
+ * 磁盘级读写失败时视为未命中，不影响查重本身。
+ *
+ * 共享实例的配置：-Dplagiarism.cache.entries 为内存级条目上限（默认 10000，为 0 时关闭缓存），
+ * -Dplagiarism.cache.dir 为磁盘级目录（不设置则只用内存级）。
+ */
+public final class ResultCache {
+    // 计算逻辑变化时递增，使旧版本的缓存结果全部失效
+    static final int ALGORITHM_VERSION = 2;
+
+    private static volatile ResultCache shared;
+    private static final String[] VERSION_STAMPS = new String[SimilarityAlgorithm.values().length];
+
+    private final int maxEntries;
+    private final Path directory;
+    private final Map<String, Double> memory;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxEntries 内存级条目上限，为 0 时关闭缓存
+     * @param directory 磁盘级目录，为 null 时只用内存级
+     */
+    public ResultCache(int maxEntries, Path directory) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("缓存条目上限不能为负数");
+        }
+        this.maxEntries = maxEntries;
+        this.directory = maxEntries > 0 ? directory : null;
+        this.memory = new LinkedHashMap<String, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+                return size() > ResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 按系统属性创建的共享缓存
+     * @return 共享缓存
+     */
+    public static ResultCache shared() {
+        ResultCache cache = shared;
+        if (cache == null) {
+            synchronized (ResultCache.class) {
+                cache = shared;
+                if (cache == null) {
+                    String dir = System.getProperty("plagiarism.cache.dir");
+                    cache = new ResultCache(Integer.getInteger("plagiarism.cache.entries", 10000),
+                            dir == null || dir.trim().isEmpty() ? null : Paths.get(dir));
+                    shared = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * 计算内容摘要
+     * @param content 文件内容
+     * @return SHA-256 摘要
+     */
+    public static byte[] digest(byte[] content) {
+        return sha256().digest(content);
+    }
+
+    /**
+     * 生成缓存键
+     * @param originalDigest 原文内容摘要
+     * @param plagiarizedDigest 抄袭文本内容摘要
+     * @param algorithm 相似度算法
+     * @return 缓存键（十六进制）
+     */
+    public static String key(byte[] originalDigest, byte[] plagiarizedDigest, SimilarityAlgorithm algorithm) {
+        MessageDigest digest = sha256();
+        digest.update(versionStamp(algorithm).getBytes(StandardCharsets.UTF_8));
+        digest.update(originalDigest);
+        digest.update(plagiarizedDigest);
+        return hex(digest.digest());
+    }
+
+    /**
+     * 算法版本戳：影响结果的全部参数和词典内容的摘要，每种算法只计算一次
+     * @param algorithm 相似度算法
+     * @return 版本戳（十六进制）
+     */
+    static String versionStamp(SimilarityAlgorithm algorithm) {
+        synchronized (VERSION_STAMPS) {
+            String stamp = VERSION_STAMPS[algorithm.ordinal()];
+            if (stamp == null) {
+                MessageDigest digest = sha256();
+                String parameters = ALGORITHM_VERSION + "|" + algorithm
+                        + "|" + SimilarityCalculator.SENTENCE_WEIGHT + "|" + SimilarityCalculator.WORD_FREQ_WEIGHT
+                        + "|" + SimilarityCalculator.SENTENCE_MATCH_THRESHOLD
+                        + "|" + TextProcessor.MAX_SENTENCE_LENGTH + "|" + Winnowing.K + "|" + Winnowing.W;
+                digest.update(parameters.getBytes(StandardCharsets.UTF_8));
+                SynonymDictionary dictionary = SynonymDictionary.shared();
+                dictionary.forEachSynonym((word, synonym) ->
+                        digest.update(("s\t" + word + "\t" + synonym + "\n").getBytes(StandardCharsets.UTF_8)));
+                dictionary.forEachStopWord(word ->
+                        digest.update(("t\t" + word + "\n").getBytes(StandardCharsets.UTF_8)));
+                stamp = hex(digest.digest());
+                VERSION_STAMPS[algorithm.ordinal()] = stamp;
+            }
+            return stamp;
+        }
+    }
+
+    /**
+     * 查询缓存，内存级未命中时查磁盘级，磁盘级命中的结果放入内存级
+     * @param key 缓存键
+     * @return 相似度，未命中时返回 null
+     */
+    public Double get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Double similarity;
+        synchronized (memory) {
+            similarity = memory.get(key);
+        }
+        if (similarity == null && directory != null) {
+            similarity = readDisk(key);
+            if (similarity != null) {
+                synchronized (memory) {
+                    memory.put(key, similarity);
+                }
+            }
+        }
+        if (similarity == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return similarity;
+    }
+
+    /**
+     * 写入缓存
+     * @param key 缓存键
+     * @param similarity 相似度
+     */
+    public void put(String key, double similarity) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (memory) {
+            memory.put(key, similarity);
+        }
+        if (directory != null) {
+            writeDisk(key, similarity);
+        }
+    }
+
+    /**
+     * @return 命中次数
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 未命中次数
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // 按键的前两位分目录，避免单个目录下文件过多
+    private Path pathOf(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private Double readDisk(String key) {
+        Path file = pathOf(key);
+        try {
+            return Double.valueOf(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void writeDisk(String key, double similarity) {
+        Path file = pathOf(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            try {
+                Files.write(temp, Double.toString(similarity).getBytes(StandardCharsets.UTF_8));
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // 磁盘级只是加速手段，写入失败时下次重新计算即可
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("运行环境不支持 SHA-256", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,214 @@
+// SentenceIndex.java
+import java.util.Arrays;
+
+/**
+ * 原文句子的倒排索引：词语编号 -> (句子下标, 该词在句中出现次数)。
+ *
+ * 两句的 LCS 长度不会超过它们词语多重集合的交集大小，因此对每个抄袭句，
+ * 只需累加它与各原文句子共有词语的次数（取较小者），就能得到相似度的上界：
+ *   上界 = 交集大小 / 平均长度
+ * 上界达不到匹配阈值的原文句子不可能匹配，直接跳过，不必计算 LCS。
+ * 交集大小又不超过较短句的长度，长度相差过大的句子在累加前就按长度上界排除。
+ *
+ * 此外按整句哈希建一张表，原样抄袭的句子查表即可判定匹配，不必走倒排表和 LCS。
+ *
+ * 索引采用单字词（一元组）而不是更长的 n 元组：LCS 是子序列而不是子串，
+ * 共有的二元组数量不能给出 LCS 的上界，用它筛选会漏掉真正匹配的句子对。
+ */
+final class SentenceIndex {
+    private final int sentenceCount;
+    private final int[] sentenceLengths;
+    private final boolean hasEmptySentence;
+    // 倒排表：terms 升序排列，第 i 个词的倒排记录位于 [offsets[i], offsets[i + 1])
+    private final int[] terms;
+    private final int[] offsets;
+    private final int[] postingSentences;
+    private final int[] postingCounts;
+    // 整句哈希表（开放寻址）：槽位存放句子下标 + 1，0 表示空槽，用于原样抄袭句的快速匹配
+    private final int[][] sentenceTokens;
+    private final long[] slotHashes;
+    private final int[] slotSentences;
+
+    SentenceIndex(Document original) {
+        this.sentenceCount = original.sentenceCount();
+        this.sentenceLengths = new int[sentenceCount];
+
+        // 每次出现的 (词语, 句子) 编码为一个 long，排序后按词语分组、组内按句子升序，
+        // 相同的 long 连续出现的次数就是该词在该句中的出现次数
+        int total = 0;
+        for (int s = 0; s < sentenceCount; s++) {
+            total += original.sentenceTokens(s).length;
+        }
+        long[] entries = new long[total];
+        int size = 0;
+        boolean empty = false;
+        for (int s = 0; s < sentenceCount; s++) {
+            int[] tokens = original.sentenceTokens(s);
+            sentenceLengths[s] = tokens.length;
+            empty |= tokens.length == 0;
+            for (int token : tokens) {
+                entries[size++] = ((long) token << 32) | s;
+            }
+        }
+        this.hasEmptySentence = empty;
+        Arrays.sort(entries);
+
+        int[] sentenceBuffer = new int[total];
+        int[] countBuffer = new int[total];
+        int[] termBuffer = new int[total];
+        int[] offsetBuffer = new int[total + 1];
+        int postings = 0;
+        int termCount = 0;
+        for (int i = 0; i < total; ) {
+            int j = i;
+            while (j < total && entries[j] == entries[i]) {
+                j++;
+            }
+            int term = (int) (entries[i] >>> 32);
+            if (termCount == 0 || termBuffer[termCount - 1] != term) {
+                termBuffer[termCount] = term;
+                offsetBuffer[termCount] = postings;
+                termCount++;
+            }
+            sentenceBuffer[postings] = (int) entries[i];
+            countBuffer[postings] = j - i;
+            postings++;
+            i = j;
+        }
+        offsetBuffer[termCount] = postings;
+        this.terms = Arrays.copyOf(termBuffer, termCount);
+        this.offsets = Arrays.copyOf(offsetBuffer, termCount + 1);
+        this.postingSentences = Arrays.copyOf(sentenceBuffer, postings);
+        this.postingCounts = Arrays.copyOf(countBuffer, postings);
+
+        this.sentenceTokens = new int[sentenceCount][];
+        int capacity = Integer.highestOneBit(Math.max(1, sentenceCount) * 2 - 1) * 2;
+        this.slotHashes = new long[capacity];
+        this.slotSentences = new int[capacity];
+        for (int s = 0; s < sentenceCount; s++) {
+            int[] tokens = original.sentenceTokens(s);
+            sentenceTokens[s] = tokens;
+            long hash = hash(tokens);
+            int slot = (int) hash & (capacity - 1);
+            while (slotSentences[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            slotHashes[slot] = hash;
+            slotSentences[slot] = s + 1;
+        }
+    }
+
+    /**
+     * 原文中是否有与给定句子标准化后完全相同的句子，先比较哈希再逐词确认，耗时与句长成正比。
+     * 完全相同的非空句相似度为 1，必然匹配，无需计算 LCS。
+     * @param tokens 句子的词语编号
+     * @return 是否存在完全相同的句子
+     */
+    boolean containsSentence(int[] tokens) {
+        long hash = hash(tokens);
+        int mask = slotSentences.length - 1;
+        int slot = (int) hash & mask;
+        while (slotSentences[slot] != 0) {
+            if (slotHashes[slot] == hash && Arrays.equals(sentenceTokens[slotSentences[slot] - 1], tokens)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private static long hash(int[] tokens) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int token : tokens) {
+            h = (h ^ token) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    int sentenceCount() {
+        return sentenceCount;
+    }
+
+    /**
+     * @return 原文中是否存在分词后为空的句子（空句与空句的相似度为 1）
+     */
+    boolean hasEmptySentence() {
+        return hasEmptySentence;
+    }
+
+    /**
+     * 创建一个查询游标。游标持有与原文句子数等长的临时数组，可在同一线程内反复使用。
+     * @return 查询游标
+     */
+    Query newQuery() {
+        return new Query();
+    }
+
+    final class Query {
+        private final int[] overlap = new int[sentenceCount];
+        private final int[] touched = new int[sentenceCount];
+        private int[] candidates = new int[16];
+
+        /**
+         * 找出相似度上界不低于阈值的原文句子
+         * @param plagSentence 抄袭句的词语编号（非空）
+         * @param threshold 匹配阈值
+         * @return 候选句子数，候选句子下标按升序存放在 {@link #candidates()} 中
+         */
+        int findCandidates(int[] plagSentence, double threshold) {
+            int[] sorted = plagSentence.clone();
+            Arrays.sort(sorted);
+
+            int touchedCount = 0;
+            for (int i = 0; i < sorted.length; ) {
+                int j = i;
+                while (j < sorted.length && sorted[j] == sorted[i]) {
+                    j++;
+                }
+                int term = Arrays.binarySearch(terms, sorted[i]);
+                if (term >= 0) {
+                    int count = j - i;
+                    for (int p = offsets[term]; p < offsets[term + 1]; p++) {
+                        int s = postingSentences[p];
+                        // 长度上界：LCS 不超过较短句的长度，长度相差过大的句子不必累加
+                        if (!lengthFeasible(sentenceLengths[s], plagSentence.length, threshold)) {
+                            continue;
+                        }
+                        if (overlap[s] == 0) {
+                            touched[touchedCount++] = s;
+                        }
+                        overlap[s] += Math.min(count, postingCounts[p]);
+                    }
+                }
+                i = j;
+            }
+
+            int found = 0;
+            for (int t = 0; t < touchedCount; t++) {
+                int s = touched[t];
+                int avgLength = (sentenceLengths[s] + plagSentence.length) / 2;
+                // LCS 不超过交集大小，按与句子相似度相同的公式计算上界
+                if (avgLength > 0 && (double) overlap[s] / avgLength >= threshold) {
+                    if (found == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, found * 2);
+                    }
+                    candidates[found++] = s;
+                }
+                overlap[s] = 0;
+            }
+            Arrays.sort(candidates, 0, found);
+            return found;
+        }
+
+        int[] candidates() {
+            return candidates;
+        }
+    }
+
+    private static boolean lengthFeasible(int length1, int length2, double threshold) {
+        int avgLength = (length1 + length2) / 2;
+        return avgLength > 0 && (double) Math.min(length1, length2) / avgLength >= threshold;
+    }
+}
@@ -0,0 +1,79 @@
+// SentenceMatchStats.java
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 句子匹配的剪枝统计，用于观察上界剪枝的效果。多线程累加，读取时汇总。
+ *
+ * 每个抄袭句都要与原文所有句子配对，配对按以下顺序被淘汰：
+ *   - 整句命中：抄袭句与某个原文句标准化后完全相同，该句的所有配对直接跳过；
+ *   - 上界剪枝：长度或共有词语数决定的相似度上界达不到匹配阈值；
+ *   - 提前结束：该抄袭句已找到匹配句，剩余候选不再计算；
+ *   - 其余配对计算 LCS。
+ */
+public final class SentenceMatchStats {
+    private final LongAdder sentencePairs = new LongAdder();
+    private final LongAdder exactSkipped = new LongAdder();
+    private final LongAdder boundPruned = new LongAdder();
+    private final LongAdder earlyExitPruned = new LongAdder();
+    private final LongAdder lcsComputed = new LongAdder();
+
+    SentenceMatchStats() {
+    }
+
+    void record(long pairs, long exact, long candidates, long computed) {
+        sentencePairs.add(pairs);
+        exactSkipped.add(exact);
+        boundPruned.add(pairs - exact - candidates);
+        earlyExitPruned.add(candidates - computed);
+        lcsComputed.add(computed);
+    }
+
+    /**
+     * @return 句子配对总数
+     */
+    public long getSentencePairs() {
+        return sentencePairs.sum();
+    }
+
+    /**
+     * @return 因抄袭句与原文句完全相同而跳过的配对数
+     */
+    public long getExactSkipped() {
+        return exactSkipped.sum();
+    }
+
+    /**
+     * @return 因相似度上界达不到阈值而跳过的配对数
+     */
+    public long getBoundPruned() {
+        return boundPruned.sum();
+    }
+
+    /**
+     * @return 因抄袭句已找到匹配句而跳过的配对数
+     */
+    public long getEarlyExitPruned() {
+        return earlyExitPruned.sum();
+    }
+
+    /**
+     * @return 实际计算 LCS 的配对数
+     */
+    public long getLcsComputed() {
+        return lcsComputed.sum();
+    }
+
+    public void reset() {
+        sentencePairs.reset();
+        exactSkipped.reset();
+        boundPruned.reset();
+        earlyExitPruned.reset();
+        lcsComputed.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("句子配对 %d，整句命中 %d，上界剪枝 %d，提前结束 %d，计算 LCS %d",
+                getSentencePairs(), getExactSkipped(), getBoundPruned(), getEarlyExitPruned(), getLcsComputed());
+    }
+}
@@ -0,0 +1,128 @@
+// SentenceReader.java
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 流式分句读取：从通道中分块读取字节，增量解码 UTF-8，边解码边清洗、分句，按需逐句返回。
+ *
+ * 整个文件不会同时出现在内存中，内存占用只有固定大小的读缓冲区和当前未结束的句子
+ * （句子长度受 plagiarism.maxSentenceLength 限制），可以处理比堆更大的文件。
+ * 返回的句子与 {@code TextProcessor.splitIntoSentences(TextProcessor.cleanText(text))} 完全一致，
+ * 非法的 UTF-8 字节与 {@link FileProcessor#readFile(String)} 一样替换为替换字符。
+ *
+ * 读取过程中的 IO 异常以 {@link UncheckedIOException} 抛出。
+ */
+public final class SentenceReader implements Iterator<String>, Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final TextProcessor.StreamingSplitter splitter;
+    private boolean endOfInput;
+    private boolean flushed;
+    private boolean finished;
+    private String next;
+
+    /**
+     * @param channel 字节来源，读取完毕后由 {@link #close()} 关闭
+     * @param maxSentenceLength 单个句子的最大长度，不大于 0 时不限制
+     */
+    public SentenceReader(ReadableByteChannel channel, int maxSentenceLength) {
+        if (channel == null) {
+            throw new IllegalArgumentException("输入通道不能为空");
+        }
+        this.channel = channel;
+        this.splitter = new TextProcessor.StreamingSplitter(maxSentenceLength);
+        chars.flip();
+    }
+
+    /**
+     * 打开文件进行流式分句
+     * @param file 文件路径
+     * @return 分句读取器
+     * @throws IOException 打开失败时抛出异常
+     */
+    public static SentenceReader open(Path file) throws IOException {
+        try {
+            return new SentenceReader(FileChannel.open(file, StandardOpenOption.READ),
+                    TextProcessor.MAX_SENTENCE_LENGTH);
+        } catch (NoSuchFileException e) {
+            throw new NoSuchFileException("文件不存在: " + file);
+        } catch (AccessDeniedException e) {
+            throw new AccessDeniedException("没有权限读取文件: " + file);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (next == null && !finished) {
+                if (chars.hasRemaining()) {
+                    next = splitter.accept(chars.get());
+                } else if (!fill()) {
+                    next = splitter.finish();
+                    finished = true;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文件失败: " + e.getMessage(), e);
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String sentence = next;
+        next = null;
+        return sentence;
+    }
+
+    /**
+     * 解码下一批字符
+     * @return 是否还有字符
+     */
+    private boolean fill() throws IOException {
+        chars.clear();
+        while (chars.position() == 0 && !flushed) {
+            if (!endOfInput && channel.read(bytes) < 0) {
+                endOfInput = true;
+            }
+            bytes.flip();
+            // 输入结束时末尾不完整的多字节序列按非法输入替换
+            decoder.decode(bytes, chars, endOfInput);
+            bytes.compact();
+            if (endOfInput && bytes.position() == 0) {
+                decoder.flush(chars);
+                flushed = true;
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,29 @@
+// SimilarityAlgorithm.java
+
+/**
+ * 相似度算法
+ */
+public enum SimilarityAlgorithm {
+    /**
+     * 句子级 LCS 与词频余弦相似度加权，精确但较慢
+     */
+    LCS_COSINE,
+
+    /**
+     * Winnowing 指纹包含度，线性时间，适合快速初筛
+     */
+    WINNOWING;
+
+    /**
+     * 由命令行参数解析算法名称（不区分大小写，允许使用连字符）
+     * @param name 算法名称
+     * @return 相似度算法
+     */
+    public static SimilarityAlgorithm parse(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("未知的相似度算法: " + name);
+        }
+    }
+}
@@ -1,139 +1,549 @@
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 // SimilarityCalculator.java
 public class SimilarityCalculator {
     // 降低句子匹配阈值以提高灵敏度
-    private static final double SENTENCE_MATCH_THRESHOLD = 0.5;
-    private static final Map<String, String> SYNONYM_MAP = TextProcessor.getSynonymMap();
+    static final double SENTENCE_MATCH_THRESHOLD = 0.5;
+    // 句子相似度与词频相似度的加权系数
+    static final double SENTENCE_WEIGHT = 0.7;
+    static final double WORD_FREQ_WEIGHT = 0.3;
+    // 并行计算时每个子任务处理的抄袭句数
+    private static final int PARALLEL_SENTENCE_BATCH = 64;
+    private static final SentenceMatchStats MATCH_STATS = new SentenceMatchStats();
 
     public static double calculateSimilarity(String originalText, String plagiarizedText) {
-        String origClean = TextProcessor.cleanText(originalText);
-        String plagClean = TextProcessor.cleanText(plagiarizedText);
-
-        List<String> origSentences = TextProcessor.splitIntoSentences(origClean);
-        List<String> plagSentences = TextProcessor.splitIntoSentences(plagClean);
+        return calculateSimilarity(Document.of(originalText), Document.of(plagiarizedText));
+    }
 
-        if (origSentences.isEmpty() || plagSentences.isEmpty()) {
+    /**
+     * 计算两篇预处理文档的相似度，同一文档可以与多篇文档反复比较而无需重新分句分词
+     * @param original 原文
+     * @param plagiarized 抄袭文本
+     * @return 相似度（0~1）
+     */
+    public static double calculateSimilarity(Document original, Document plagiarized) {
+        if (original.isEmpty() || plagiarized.isEmpty()) {
             return 0.0;
         }
 
-        double sentenceSimilarity = calculateSentenceSimilarity(origSentences, plagSentences);
-        double wordFreqSimilarity = calculateWordFrequencySimilarity(origClean, plagClean);
+        double sentenceSimilarity = calculateSentenceSimilarity(original, plagiarized);
+        double wordFreqSimilarity = cosine(original, plagiarized);
 
         // 调整权重比例，增加词频权重
-        double finalSimilarity = 0.7 * sentenceSimilarity + 0.3 * wordFreqSimilarity;
+        double finalSimilarity = SENTENCE_WEIGHT * sentenceSimilarity + WORD_FREQ_WEIGHT * wordFreqSimilarity;
 
         return Math.max(0.0, Math.min(1.0, finalSimilarity));
     }
 
-    static double calculateSentenceSimilarity(List<String> origSentences, List<String> plagSentences) {
-        int totalMatches = 0;
-
-        for (String plagSent : plagSentences) {
-            double maxSimilarity = 0.0;
+    /**
+     * 流式计算相似度：抄袭文本逐句读入、逐句判断是否匹配，词频按词语编号累计，
+     * 不保存抄袭文本本身，适合比堆还大的抄袭文本。结果与整篇读入后计算完全一致。
+     * @param original 原文
+     * @param plagiarizedSentences 抄袭文本的句子（如 {@link SentenceReader}）
+     * @return 相似度（0~1）
+     */
+    public static double calculateSimilarity(Document original, Iterator<String> plagiarizedSentences) {
+        if (original.isEmpty()) {
+            return 0.0;
+        }
 
-            for (String origSent : origSentences) {
-                double similarity = calculateTwoSentencesSimilarity(origSent, plagSent);
-                if (similarity > maxSimilarity) {
-                    maxSimilarity = similarity;
+        DictionarySegmenter segmenter = DictionarySegmenter.shared();
+        SentenceMatcher matcher = new SentenceMatcher(original);
+        long plagCount = 0;
+        long totalMatches = 0;
+        // 抄袭文本的词频按词语编号存放，大小只与词表有关
+        int[] counts = new int[TokenDictionary.shared().size()];
+        long sumOfSquares = 0;
+        try {
+            while (plagiarizedSentences.hasNext()) {
+                int[] tokens = segmenter.segment(plagiarizedSentences.next());
+                plagCount++;
+                if (matcher.isMatched(tokens)) {
+                    totalMatches++;
                 }
-
-                if (maxSimilarity >= 0.9) {
-                    break;
+                for (int token : tokens) {
+                    if (token >= counts.length) {
+                        counts = Arrays.copyOf(counts, Math.max(counts.length * 2, token + 1));
+                    }
+                    sumOfSquares += 2L * counts[token] + 1;
+                    counts[token]++;
                 }
             }
+        } finally {
+            matcher.flush();
+        }
+        if (plagCount == 0) {
+            return 0.0;
+        }
 
-            if (maxSimilarity >= SENTENCE_MATCH_THRESHOLD) {
-                totalMatches++;
+        StageEvent event = PipelineMetrics.begin();
+        SparseVector vector = original.termVector();
+        long dotProduct = 0;
+        for (int i = 0; i < vector.size(); i++) {
+            int id = vector.idAt(i);
+            if (id < counts.length) {
+                dotProduct += (long) vector.countAt(i) * counts[id];
             }
         }
+        double plagNorm = Math.sqrt(sumOfSquares);
+        double wordFreqSimilarity = vector.norm() == 0 || plagNorm == 0
+                ? 0.0 : dotProduct / (vector.norm() * plagNorm);
+        PipelineMetrics.end(event, PipelineMetrics.Stage.COSINE, vector.size(), 0, 0, 0);
 
-        return (double) totalMatches / plagSentences.size();
+        return blend((double) totalMatches / plagCount, wordFreqSimilarity);
     }
 
-    static double calculateTwoSentencesSimilarity(String sentence1, String sentence2) {
-        List<String> words1 = TextProcessor.segmentSentence(sentence1);
-        List<String> words2 = TextProcessor.segmentSentence(sentence2);
+    /**
+     * 使用指定算法计算相似度
+     * @param originalText 原文
+     * @param plagiarizedText 抄袭文本
+     * @param algorithm 相似度算法
+     * @return 相似度（0~1）
+     */
+    public static double calculateSimilarity(String originalText, String plagiarizedText, SimilarityAlgorithm algorithm) {
+        return calculateSimilarity(Document.of(originalText), Document.of(plagiarizedText), algorithm);
+    }
 
-        if (words1.isEmpty() && words2.isEmpty()) return 1.0;
-        if (words1.isEmpty() || words2.isEmpty()) return 0.0;
+    /**
+     * 使用指定算法计算两篇预处理文档的相似度
+     * @param original 原文
+     * @param plagiarized 抄袭文本
+     * @param algorithm 相似度算法
+     * @return 相似度（0~1）
+     */
+    public static double calculateSimilarity(Document original, Document plagiarized, SimilarityAlgorithm algorithm) {
+        switch (algorithm) {
+            case LCS_COSINE:
+                return calculateSimilarity(original, plagiarized);
+            case WINNOWING:
+                return Winnowing.containment(original.fingerprints(), plagiarized.fingerprints());
+            default:
+                throw new IllegalArgumentException("不支持的相似度算法: " + algorithm);
+        }
+    }
 
-        List<String> normalized1 = normalizeWords(words1);
-        List<String> normalized2 = normalizeWords(words2);
+    /**
+     * 使用 MinHash/LSH 近似筛选句子对计算相似度，适合超长原文；结果不高于精确值
+     * @param original 原文
+     * @param plagiarized 抄袭文本
+     * @param lsh LSH 参数
+     * @return 相似度（0~1）
+     */
+    public static double calculateSimilarity(Document original, Document plagiarized, MinHashLsh lsh) {
+        if (original.isEmpty() || plagiarized.isEmpty()) {
+            return 0.0;
+        }
 
-        int lcsLength = calculateLCSLength(normalized1, normalized2);
+        double sentenceSimilarity = lsh.calculateSentenceSimilarity(original, plagiarized).getSimilarity();
+        double wordFreqSimilarity = cosine(original, plagiarized);
 
-        // 使用平均长度作为分母，提高相似度计算准确性
-        int avgLength = (normalized1.size() + normalized2.size()) / 2;
-        return avgLength == 0 ? 0.0 : (double) lcsLength / avgLength;
+        return blend(sentenceSimilarity, wordFreqSimilarity);
     }
 
-    static List<String> normalizeWords(List<String> words) {
-        List<String> normalized = new ArrayList<>();
-        for (String word : words) {
-            normalized.add(SYNONYM_MAP.getOrDefault(word, word));
+    /**
+     * 并行计算两篇预处理文档的相似度，适合单对超长文档（如学位论文）的交互式查重。
+     * 各抄袭句是否匹配互不相关，匹配数为整数，结果与串行计算逐位一致。
+     * @param original 原文
+     * @param plagiarized 抄袭文本
+     * @param parallelism 并行度，不大于 1 时串行计算
+     * @return 相似度（0~1）
+     */
+    public static double calculateSimilarity(Document original, Document plagiarized, int parallelism) {
+        if (original.isEmpty() || plagiarized.isEmpty()) {
+            return 0.0;
         }
-        return normalized;
+
+        double sentenceSimilarity = calculateSentenceSimilarity(original, plagiarized, parallelism, MATCH_STATS);
+        double wordFreqSimilarity = cosine(original, plagiarized);
+
+        return blend(sentenceSimilarity, wordFreqSimilarity);
     }
 
-    private static int calculateLCSLength(List<String> list1, List<String> list2) {
-        int m = list1.size();
-        int n = list2.size();
+    /**
+     * 判断相似度是否达到阈值，结论确定后立即返回。
+     *
+     * 先算代价很低的词频余弦相似度，再逐句统计匹配数。处理了 p 个抄袭句、其中 k 个匹配时，
+     * 句子相似度一定落在 [k/N, (k+N-p)/N] 内，按与 {@link #calculateSimilarity(Document, Document)}
+     * 相同的公式加权后即为最终相似度的上下界：下界达到阈值或上界低于阈值时结论已定，剩余句子不再计算。
+     * 两个界都没能提前给出结论的文本对会处理完全部句子，得到精确相似度。
+     * @param original 原文
+     * @param plagiarized 抄袭文本
+     * @param threshold 阈值（0~1）
+     * @return 判定结果
+     */
+    public static ThresholdResult checkThreshold(Document original, Document plagiarized, double threshold) {
+        if (original.isEmpty() || plagiarized.isEmpty()) {
+            return new ThresholdResult(0.0 >= threshold, 0.0, 0.0);
+        }
 
-        int[][] dp = new int[m + 1][n + 1];
+        double wordFreqSimilarity = cosine(original, plagiarized);
+        SentenceMatcher matcher = new SentenceMatcher(original);
+        int plagCount = plagiarized.sentenceCount();
+        int matches = 0;
+        try {
+            for (int p = 0; p < plagCount; p++) {
+                double lower = blend((double) matches / plagCount, wordFreqSimilarity);
+                double upper = blend((double) (matches + plagCount - p) / plagCount, wordFreqSimilarity);
+                if (lower >= threshold || upper < threshold) {
+                    return new ThresholdResult(lower >= threshold, lower, upper);
+                }
+                if (matcher.isMatched(plagiarized.sentenceTokens(p))) {
+                    matches++;
+                }
+            }
+        } finally {
+            matcher.flush();
+        }
 
-        for (int i = 1; i <= m; i++) {
-            for (int j = 1; j <= n; j++) {
-                if (list1.get(i - 1).equals(list2.get(j - 1))) {
-                    dp[i][j] = dp[i - 1][j - 1] + 1;
-                } else {
-                    dp[i][j] = Math.max(dp[i - 1][j], dp[i][j - 1]);
+        double similarity = blend((double) matches / plagCount, wordFreqSimilarity);
+        return new ThresholdResult(similarity >= threshold, similarity, similarity);
+    }
+
+    /**
+     * 同时计算两个方向的相似度：词频余弦相似度是对称的，只算一次，句子相似度两个方向各算一次
+     * @param first 文档一
+     * @param second 文档二
+     * @return {以文档一为原文, 以文档二为原文} 的相似度
+     */
+    static double[] calculateBothDirections(Document first, Document second) {
+        if (first.isEmpty() || second.isEmpty()) {
+            return new double[]{0.0, 0.0};
+        }
+        double wordFreqSimilarity = cosine(first, second);
+        return new double[]{
+                blend(calculateSentenceSimilarity(first, second), wordFreqSimilarity),
+                blend(calculateSentenceSimilarity(second, first), wordFreqSimilarity)
+        };
+    }
+
+    // 两篇文档词频向量的余弦相似度
+    private static double cosine(Document first, Document second) {
+        StageEvent event = PipelineMetrics.begin();
+        double similarity = first.termVector().cosine(second.termVector());
+        PipelineMetrics.end(event, PipelineMetrics.Stage.COSINE,
+                first.termVector().size() + second.termVector().size(), 0, 0, 0);
+        return similarity;
+    }
+
+    // 与 calculateSimilarity 相同的加权公式，对句子相似度单调不减，因此可以直接加权上下界
+    static double blend(double sentenceSimilarity, double wordFreqSimilarity) {
+        double finalSimilarity = SENTENCE_WEIGHT * sentenceSimilarity + WORD_FREQ_WEIGHT * wordFreqSimilarity;
+        return Math.max(0.0, Math.min(1.0, finalSimilarity));
+    }
+
+    /**
+     * 阈值判定结果：是否达到阈值，以及判定时最终相似度的上下界
+     */
+    public static final class ThresholdResult {
+        private final boolean above;
+        private final double lowerBound;
+        private final double upperBound;
+
+        ThresholdResult(boolean above, double lowerBound, double upperBound) {
+            this.above = above;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+        }
+
+        /**
+         * @return 相似度是否不低于阈值
+         */
+        public boolean isAbove() {
+            return above;
+        }
+
+        public double getLowerBound() {
+            return lowerBound;
+        }
+
+        public double getUpperBound() {
+            return upperBound;
+        }
+
+        /**
+         * @return 是否计算了精确相似度（上下界重合）
+         */
+        public boolean isExact() {
+            return lowerBound == upperBound;
+        }
+    }
+
+    static double calculateSentenceSimilarity(List<String> origSentences, List<String> plagSentences) {
+        return calculateSentenceSimilarity(Document.ofSentences(origSentences), Document.ofSentences(plagSentences));
+    }
+
+    static double calculateSentenceSimilarity(Document original, Document plagiarized) {
+        return calculateSentenceSimilarity(original, plagiarized, MATCH_STATS);
+    }
+
+    /**
+     * 计算句子级相似度，剪枝统计计入指定的统计对象
+     * @param original 原文
+     * @param plagiarized 抄袭文本
+     * @param stats 剪枝统计
+     * @return 句子相似度（0~1）
+     */
+    static double calculateSentenceSimilarity(Document original, Document plagiarized, SentenceMatchStats stats) {
+        SentenceMatcher matcher = new SentenceMatcher(original, stats);
+        int plagCount = plagiarized.sentenceCount();
+        int totalMatches = 0;
+
+        for (int p = 0; p < plagCount; p++) {
+            if (matcher.isMatched(plagiarized.sentenceTokens(p))) {
+                totalMatches++;
+            }
+        }
+        matcher.flush();
+
+        return (double) totalMatches / plagCount;
+    }
+
+    /**
+     * 并行计算句子级相似度，各子任务的剪枝统计计入同一个统计对象
+     * @param original 原文
+     * @param plagiarized 抄袭文本
+     * @param parallelism 并行度，不大于 1 时串行计算
+     * @param stats 剪枝统计
+     * @return 句子相似度（0~1）
+     */
+    static double calculateSentenceSimilarity(Document original, Document plagiarized, int parallelism,
+                                              SentenceMatchStats stats) {
+        int plagCount = plagiarized.sentenceCount();
+        if (parallelism <= 1 || plagCount < 2 * PARALLEL_SENTENCE_BATCH) {
+            return calculateSentenceSimilarity(original, plagiarized, stats);
+        }
+
+        // 倒排索引在分叉前构建好，各子任务只读共享
+        original.sentenceIndex();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            int totalMatches = pool.invoke(new MatchCountTask(original, plagiarized, 0, plagCount, stats));
+            return (double) totalMatches / plagCount;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 统计抄袭句区间 [from, to) 中有匹配句的句子数，区间过大时二分后并行处理。
+     * 每个叶子任务使用自己的匹配器，剪枝统计计入调用方传入的统计对象。
+     */
+    private static final class MatchCountTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Document original;
+        private final transient Document plagiarized;
+        private final int from;
+        private final int to;
+        private final transient SentenceMatchStats stats;
+
+        MatchCountTask(Document original, Document plagiarized, int from, int to, SentenceMatchStats stats) {
+            this.original = original;
+            this.plagiarized = plagiarized;
+            this.from = from;
+            this.to = to;
+            this.stats = stats;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= PARALLEL_SENTENCE_BATCH) {
+                SentenceMatcher matcher = new SentenceMatcher(original, stats);
+                int matches = 0;
+                for (int p = from; p < to; p++) {
+                    if (matcher.isMatched(plagiarized.sentenceTokens(p))) {
+                        matches++;
+                    }
                 }
+                matcher.flush();
+                return matches;
             }
+
+            int middle = (from + to) >>> 1;
+            MatchCountTask left = new MatchCountTask(original, plagiarized, from, middle, stats);
+            left.fork();
+            int right = new MatchCountTask(original, plagiarized, middle, to, stats).compute();
+            return left.join() + right;
         }
+    }
 
-        return dp[m][n];
+    /**
+     * @return 句子匹配的剪枝统计（全局累计）
+     */
+    public static SentenceMatchStats sentenceMatchStats() {
+        return MATCH_STATS;
     }
 
-    static double calculateWordFrequencySimilarity(String text1, String text2) {
-        List<String> words1 = TextProcessor.segmentSentence(text1);
-        List<String> words2 = TextProcessor.segmentSentence(text2);
+    /**
+     * 判断抄袭句是否在原文中有匹配句，单线程使用。
+     *
+     * 只有“是否匹配”影响结果，因此：
+     *   - 与原文某句标准化后完全相同的抄袭句查整句哈希表即可判定匹配；
+     *   - 只对倒排索引给出的候选句（长度上界和共有词语上界都达到阈值的句子）计算 LCS；
+     *   - 找到第一个相似度达到阈值的候选句即可结束，剩余候选不再计算。
+     * 剪枝数先在本地累计，{@link #flush()} 时一次性计入构造时指定的统计对象（默认为全局统计）；
+     * 上次 flush 之后判断的所有句子作为一个 SENTENCE_MATCH 阶段记录（见 {@link PipelineMetrics}）。
+     */
+    static final class SentenceMatcher {
+        private final Document original;
+        private final SentenceIndex.Query query;
+        private final SentenceMatchStats stats;
+        private long pairs;
+        private long exact;
+        private long candidates;
+        private long computed;
+        private long sentences;
+        private StageEvent event;
+
+        SentenceMatcher(Document original) {
+            this(original, MATCH_STATS);
+        }
 
-        // 对词语进行标准化处理，使词频计算考虑同义词
-        List<String> normalized1 = normalizeWords(words1);
-        List<String> normalized2 = normalizeWords(words2);
+        SentenceMatcher(Document original, SentenceMatchStats stats) {
+            this.original = original;
+            this.query = original.sentenceIndex().newQuery();
+            this.stats = stats;
+        }
 
-        Map<String, Integer> freq1 = getWordFrequency(normalized1);
-        Map<String, Integer> freq2 = getWordFrequency(normalized2);
+        boolean isMatched(int[] plagSent) {
+            if (sentences++ == 0) {
+                event = PipelineMetrics.begin();
+            }
+            pairs += original.sentenceCount();
+            if (plagSent.length == 0) {
+                // 空句只与空句相似
+                return original.sentenceIndex().hasEmptySentence();
+            }
 
-        Set<String> allWords = new HashSet<>(freq1.keySet());
-        allWords.addAll(freq2.keySet());
+            if (original.sentenceIndex().containsSentence(plagSent)) {
+                exact += original.sentenceCount();
+                return true;
+            }
 
-        double dotProduct = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
+            int candidateCount = query.findCandidates(plagSent, SENTENCE_MATCH_THRESHOLD);
+            candidates += candidateCount;
+            if (candidateCount == 0) {
+                return false;
+            }
 
-        for (String word : allWords) {
-            int f1 = freq1.getOrDefault(word, 0);
-            int f2 = freq2.getOrDefault(word, 0);
+            int[] candidateSentences = query.candidates();
+            // 抄袭句作为位并行 LCS 的模式串，掩码表只构建一次，与所有候选句复用
+            BitParallelLcs plagLcs = new BitParallelLcs(plagSent);
+            for (int c = 0; c < candidateCount; c++) {
+                int[] origSent = original.sentenceTokens(candidateSentences[c]);
+                computed++;
+                double similarity = sentenceSimilarity(origSent.length, plagSent.length, plagLcs.lcsLength(origSent));
+                if (similarity >= SENTENCE_MATCH_THRESHOLD) {
+                    return true;
+                }
+            }
+            return false;
+        }
 
-            dotProduct += f1 * f2;
-            norm1 += f1 * f1;
-            norm2 += f2 * f2;
+        void flush() {
+            PipelineMetrics.end(event, PipelineMetrics.Stage.SENTENCE_MATCH,
+                    original.sentenceCount(), sentences, pairs, pairs - computed);
+            event = null;
+            sentences = 0;
+            stats.record(pairs, exact, candidates, computed);
+            pairs = 0;
+            exact = 0;
+            candidates = 0;
+            computed = 0;
         }
+    }
 
-        if (norm1 == 0 || norm2 == 0) {
-            return 0.0;
+    static double calculateTwoSentencesSimilarity(String sentence1, String sentence2) {
+        DictionarySegmenter segmenter = DictionarySegmenter.shared();
+        return calculateTwoSentencesSimilarity(segmenter.segment(sentence1), segmenter.segment(sentence2));
+    }
+
+    /**
+     * 计算两个已编码句子的相似度
+     * @param tokens1 句子1的词语编号
+     * @param tokens2 句子2的词语编号
+     * @return 相似度
+     */
+    static double calculateTwoSentencesSimilarity(int[] tokens1, int[] tokens2) {
+        if (tokens1.length == 0 || tokens2.length == 0) {
+            return sentenceSimilarity(tokens1.length, tokens2.length, 0);
         }
+        return sentenceSimilarity(tokens1.length, tokens2.length, calculateLCSLength(tokens1, tokens2));
+    }
 
-        return dotProduct / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    /**
+     * 由两句长度和 LCS 长度得到句子相似度
+     * @param length1 句子1的词语数
+     * @param length2 句子2的词语数
+     * @param lcsLength LCS 长度
+     * @return 相似度
+     */
+    private static double sentenceSimilarity(int length1, int length2, int lcsLength) {
+        if (length1 == 0 && length2 == 0) return 1.0;
+        if (length1 == 0 || length2 == 0) return 0.0;
+
+        // 使用平均长度作为分母，提高相似度计算准确性
+        int avgLength = (length1 + length2) / 2;
+        return avgLength == 0 ? 0.0 : (double) lcsLength / avgLength;
     }
 
-    private static Map<String, Integer> getWordFrequency(List<String> words) {
-        Map<String, Integer> frequency = new HashMap<>();
+    static List<String> normalizeWords(List<String> words) {
+        List<String> normalized = new ArrayList<>();
         for (String word : words) {
-            frequency.put(word, frequency.getOrDefault(word, 0) + 1);
+            String synonym = SynonymDictionary.shared().lookup(word);
+            normalized.add(synonym == null ? word : synonym);
         }
-        return frequency;
+        return normalized;
+    }
+
+    static int calculateLCSLength(int[] seq1, int[] seq2) {
+        // 位并行算法与动态规划结果完全一致，默认使用
+        return BitParallelLcs.lcsLength(seq1, seq2);
+    }
+
+    /**
+     * 动态规划计算 LCS 长度，作为位并行实现的对照。
+     * 只保留滚动的两行，空间为 O(min(m, n))，超长输入也不会耗尽堆内存。
+     */
+    static int calculateLCSLengthDp(int[] seq1, int[] seq2) {
+        if (seq1.length < seq2.length) {
+            int[] swap = seq1;
+            seq1 = seq2;
+            seq2 = swap;
+        }
+        int m = seq1.length;
+        int n = seq2.length;
+
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+
+        for (int i = 1; i <= m; i++) {
+            int token = seq1[i - 1];
+            for (int j = 1; j <= n; j++) {
+                if (token == seq2[j - 1]) {
+                    current[j] = previous[j - 1] + 1;
+                } else {
+                    current[j] = Math.max(previous[j], current[j - 1]);
+                }
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return previous[n];
+    }
+
+    static double calculateWordFrequencySimilarity(String text1, String text2) {
+        DictionarySegmenter segmenter = DictionarySegmenter.shared();
+        // 分词时进行同义词标准化，使词频计算考虑同义词
+        int[] tokens1 = segmenter.segment(text1);
+        int[] tokens2 = segmenter.segment(text2);
+        Arrays.sort(tokens1);
+        Arrays.sort(tokens2);
+
+        return SparseVector.ofSorted(tokens1).cosine(SparseVector.ofSorted(tokens2));
     }
-}
\ No newline at end of file
+}
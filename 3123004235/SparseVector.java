@@ -0,0 +1,110 @@
+// SparseVector.java
+
+/**
+ * 词频稀疏向量（不可变）：按编号升序排列的词语编号和对应词频，全部使用基本类型数组，
+ * 向量的模在构建时算好。两个向量的点积按编号归并，时间与不同词语数成线性关系。
+ * 文档的词频向量只构建一次，与成千上万篇文档比较时直接复用。
+ */
+final class SparseVector {
+    static final SparseVector EMPTY = new SparseVector(new int[0], new int[0]);
+
+    private final int[] ids;
+    private final int[] counts;
+    private final double norm;
+
+    private SparseVector(int[] ids, int[] counts) {
+        this.ids = ids;
+        this.counts = counts;
+        long sumOfSquares = 0;
+        for (int count : counts) {
+            sumOfSquares += (long) count * count;
+        }
+        this.norm = Math.sqrt(sumOfSquares);
+    }
+
+    /**
+     * 由已升序排列的词语编号统计词频
+     * @param sortedTokens 已升序排列的词语编号
+     * @return 词频向量
+     */
+    static SparseVector ofSorted(int[] sortedTokens) {
+        int distinct = 0;
+        for (int i = 0; i < sortedTokens.length; i++) {
+            if (i == 0 || sortedTokens[i] != sortedTokens[i - 1]) {
+                distinct++;
+            }
+        }
+        if (distinct == 0) {
+            return EMPTY;
+        }
+
+        int[] ids = new int[distinct];
+        int[] counts = new int[distinct];
+        int size = -1;
+        for (int i = 0; i < sortedTokens.length; i++) {
+            if (i == 0 || sortedTokens[i] != sortedTokens[i - 1]) {
+                ids[++size] = sortedTokens[i];
+            }
+            counts[size]++;
+        }
+        return new SparseVector(ids, counts);
+    }
+
+    /**
+     * @return 不同词语的个数
+     */
+    int size() {
+        return ids.length;
+    }
+
+    int idAt(int index) {
+        return ids[index];
+    }
+
+    int countAt(int index) {
+        return counts[index];
+    }
+
+    double norm() {
+        return norm;
+    }
+
+    /**
+     * 按编号归并计算点积
+     * @param other 另一个向量
+     * @return 点积
+     */
+    long dot(SparseVector other) {
+        int[] ids1 = ids;
+        int[] ids2 = other.ids;
+        long dotProduct = 0;
+        int i = 0;
+        int j = 0;
+        while (i < ids1.length && j < ids2.length) {
+            int id1 = ids1[i];
+            int id2 = ids2[j];
+            if (id1 < id2) {
+                i++;
+            } else if (id1 > id2) {
+                j++;
+            } else {
+                dotProduct += (long) counts[i] * other.counts[j];
+                i++;
+                j++;
+            }
+        }
+        return dotProduct;
+    }
+
+    /**
+     * 余弦相似度，任一向量为空时返回 0
+     * @param other 另一个向量
+     * @return 余弦相似度
+     */
+    double cosine(SparseVector other) {
+        if (norm == 0 || other.norm == 0) {
+            return 0.0;
+        }
+        return dot(other) / (norm * other.norm);
+    }
+}
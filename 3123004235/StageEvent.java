@@ -0,0 +1,39 @@
+// StageEvent.java
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 查重流程中一个阶段的 JFR 事件，持续时间由 JFR 记录。
+ * 只在飞行记录启用了该事件（或打开了 -Dplagiarism.metrics）时创建，见 {@link PipelineMetrics}。
+ *
+ * 开启方式：java -XX:StartFlightRecording:filename=check.jfr ...，用 JMC 或 jfr print --events plagiarism.Stage 查看。
+ */
+@Name("plagiarism.Stage")
+@Label("查重阶段")
+@Category("Plagiarism")
+@Description("查重流程中一个阶段的耗时和规模")
+@StackTrace(false)
+final class StageEvent extends jdk.jfr.Event {
+    @Label("阶段")
+    String stage;
+
+    @Label("输入大小")
+    @Description("字节数、字符数或原文句子数，依阶段而定")
+    long inputSize;
+
+    @Label("句子数")
+    long sentences;
+
+    @Label("句子对数")
+    long pairs;
+
+    @Label("剪枝句子对数")
+    @Description("未计算 LCS 的句子对数")
+    long pruned;
+
+    // 计入进程内统计用的起始时间，不写入记录
+    transient long startNanos;
+}
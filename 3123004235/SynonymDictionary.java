@@ -0,0 +1,384 @@
+// SynonymDictionary.java
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 不可变的同义词 / 停用词词典。
+ *
+ * 所有词条按字典序排列后存放在一块连续的缓冲区中（不为每个词条创建对象），
+ * 查询时在缓冲区上二分查找。同一块缓冲区里还存放分词用的字典树（同义词组已合并，
+ * 见 {@link DictionarySegmenter.Trie}），{@link DictionarySegmenter} 直接在其上查找。
+ * 同一布局既可以在内存中由文本词典构建，也可以写成编译后的二进制文件，
+ * 启动时直接内存映射，不再解析词条或重建字典树，词典再大也只需毫秒级加载。
+ *
+ * 二进制布局（大端）：
+ *   魔数 int，版本 int，同义词条数 int，停用词数 int，字符总数 int，
+ *   字典树节点数 int，字典树边表容量 int，代表词字符总数 int，
+ *   字典树边表：键 long 数组与子节点 int 数组，
+ *   字典树节点输出：每个节点 (偏移, 长度) 共 2 个 int，
+ *   同义词表：每条 (词偏移, 词长度, 同义词偏移, 同义词长度) 共 4 个 int，按词排序，
+ *   停用词表：每条 (偏移, 长度) 共 2 个 int，按词排序，
+ *   字符区：UTF-16 字符，
+ *   代表词字符区：UTF-16 字符。
+ *
+ * 默认共享实例的来源（按优先级）：
+ *   系统属性 plagiarism.dictionary 指定的编译后词典文件；
+ *   系统属性 plagiarism.synonymFile / plagiarism.stopWordFile 指定的文本词典；
+ *   内置词典（{@link TextProcessor#getSynonymMap()} 与内置停用词）。
+ */
+public final class SynonymDictionary {
+    private static final int MAGIC = 0x50444943;
+    private static final int VERSION = 2;
+    // 头部为偶数个 int，其后的 long 数组按 8 字节对齐
+    private static final int HEADER_INTS = 8;
+
+    private static volatile SynonymDictionary shared;
+
+    private final ByteBuffer buffer;
+    private final int entryCount;
+    private final int stopCount;
+    private final IntBuffer entries;
+    private final IntBuffer stops;
+    private final CharBuffer chars;
+    private final LongBuffer trieEdgeKeys;
+    private final IntBuffer trieEdgeChildren;
+    private final IntBuffer trieNodeOutputs;
+    private final CharBuffer trieOutputChars;
+
+    private SynonymDictionary(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.asReadOnlyBuffer();
+        IntBuffer header = this.buffer.duplicate().asIntBuffer();
+        if (header.remaining() < HEADER_INTS || header.get(0) != MAGIC) {
+            throw new IOException("不是有效的词典文件");
+        }
+        if (header.get(1) != VERSION) {
+            throw new IOException("不支持的词典版本: " + header.get(1));
+        }
+        this.entryCount = header.get(2);
+        this.stopCount = header.get(3);
+        int charCount = header.get(4);
+        int nodeCount = header.get(5);
+        int edgeCapacity = header.get(6);
+        int outputCharCount = header.get(7);
+        if (nodeCount < 1 || edgeCapacity < 1 || Integer.bitCount(edgeCapacity) != 1) {
+            throw new IOException("词典文件已损坏");
+        }
+
+        int edgeKeysStart = HEADER_INTS * 4;
+        int edgeChildrenStart = edgeKeysStart + edgeCapacity * 8;
+        int nodeOutputsStart = edgeChildrenStart + edgeCapacity * 4;
+        int entriesStart = nodeOutputsStart + nodeCount * 8;
+        int stopsStart = entriesStart + entryCount * 16;
+        int charsStart = stopsStart + stopCount * 8;
+        int outputCharsStart = charsStart + charCount * 2;
+        if (outputCharsStart + (long) outputCharCount * 2 > this.buffer.capacity()) {
+            throw new IOException("词典文件已损坏");
+        }
+        this.trieEdgeKeys = slice(edgeKeysStart, edgeCapacity * 8).asLongBuffer();
+        this.trieEdgeChildren = slice(edgeChildrenStart, edgeCapacity * 4).asIntBuffer();
+        this.trieNodeOutputs = slice(nodeOutputsStart, nodeCount * 8).asIntBuffer();
+        this.entries = slice(entriesStart, entryCount * 16).asIntBuffer();
+        this.stops = slice(stopsStart, stopCount * 8).asIntBuffer();
+        this.chars = slice(charsStart, charCount * 2).asCharBuffer();
+        this.trieOutputChars = slice(outputCharsStart, outputCharCount * 2).asCharBuffer();
+    }
+
+    private ByteBuffer slice(int position, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position).limit(position + length);
+        return duplicate.slice();
+    }
+
+    /**
+     * @return 全局共享的词典，首次使用时按系统属性加载
+     */
+    public static SynonymDictionary shared() {
+        SynonymDictionary dictionary = shared;
+        if (dictionary == null) {
+            synchronized (SynonymDictionary.class) {
+                dictionary = shared;
+                if (dictionary == null) {
+                    try {
+                        dictionary = loadConfigured();
+                    } catch (IOException e) {
+                        throw new IllegalStateException("加载词典失败: " + e.getMessage(), e);
+                    }
+                    shared = dictionary;
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    private static SynonymDictionary loadConfigured() throws IOException {
+        String compiled = System.getProperty("plagiarism.dictionary");
+        if (compiled != null && !compiled.trim().isEmpty()) {
+            return open(Paths.get(compiled));
+        }
+        String synonymFile = System.getProperty("plagiarism.synonymFile");
+        String stopWordFile = System.getProperty("plagiarism.stopWordFile");
+        if (synonymFile != null || stopWordFile != null) {
+            Map<String, String> synonyms = synonymFile == null
+                    ? TextProcessor.getSynonymMap() : readSynonyms(Paths.get(synonymFile));
+            Set<String> stopWords = stopWordFile == null
+                    ? TextProcessor.getStopWords() : readStopWords(Paths.get(stopWordFile));
+            return build(synonyms, stopWords);
+        }
+        return builtin();
+    }
+
+    /**
+     * @return 由内置同义词表和停用词构建的词典
+     */
+    public static SynonymDictionary builtin() {
+        return build(TextProcessor.getSynonymMap(), TextProcessor.getStopWords());
+    }
+
+    /**
+     * 从文本词典加载。同义词文件每行一对：词语与同义词以制表符或空格分隔；
+     * 停用词文件每行一个词。以 # 开头的行为注释，重复的词以最后一次出现为准。
+     * @param synonymFile 同义词文件
+     * @param stopWordFile 停用词文件，为 null 时使用内置停用词
+     * @return 词典
+     * @throws IOException 读取失败时抛出异常
+     */
+    public static SynonymDictionary load(Path synonymFile, Path stopWordFile) throws IOException {
+        Set<String> stopWords = stopWordFile == null ? TextProcessor.getStopWords() : readStopWords(stopWordFile);
+        return build(readSynonyms(synonymFile), stopWords);
+    }
+
+    /**
+     * 内存映射打开编译后的词典文件
+     * @param compiledFile 编译后的词典文件
+     * @return 词典
+     * @throws IOException 读取失败时抛出异常
+     */
+    public static SynonymDictionary open(Path compiledFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(compiledFile, StandardOpenOption.READ)) {
+            return new SynonymDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (NoSuchFileException e) {
+            throw new NoSuchFileException("文件不存在: " + compiledFile);
+        }
+    }
+
+    /**
+     * 把词典写成编译后的二进制文件
+     * @param compiledFile 输出文件
+     * @throws IOException 写入失败时抛出异常
+     */
+    public void compile(Path compiledFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(compiledFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer content = buffer.duplicate();
+            content.clear();
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        }
+    }
+
+    static SynonymDictionary build(Map<String, String> synonyms, Set<String> stopWords) {
+        TreeMap<String, String> sortedSynonyms = new TreeMap<>(synonyms);
+        TreeSet<String> sortedStops = new TreeSet<>(stopWords);
+
+        int charCount = 0;
+        for (Map.Entry<String, String> entry : sortedSynonyms.entrySet()) {
+            charCount += entry.getKey().length() + entry.getValue().length();
+        }
+        for (String stopWord : sortedStops) {
+            charCount += stopWord.length();
+        }
+
+        DictionarySegmenter.Trie trie = new DictionarySegmenter.Trie(sortedSynonyms, sortedStops);
+        int edgeCapacity = trie.edgeKeys.length;
+        int outputCharCount = trie.outputChars.length();
+
+        int size = HEADER_INTS * 4 + edgeCapacity * 12 + trie.nodeCount * 8
+                + sortedSynonyms.size() * 16 + sortedStops.size() * 8 + charCount * 2 + outputCharCount * 2;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        IntBuffer ints = buffer.asIntBuffer();
+        ints.put(MAGIC).put(VERSION).put(sortedSynonyms.size()).put(sortedStops.size()).put(charCount)
+                .put(trie.nodeCount).put(edgeCapacity).put(outputCharCount);
+
+        buffer.position(HEADER_INTS * 4);
+        buffer.slice().asLongBuffer().put(trie.edgeKeys);
+        ints.position(HEADER_INTS + edgeCapacity * 2);
+        ints.put(trie.edgeChildren);
+        ints.put(trie.nodeOutputs, 0, trie.nodeCount * 2);
+
+        buffer.position(size - charCount * 2 - outputCharCount * 2);
+        CharBuffer text = buffer.slice().asCharBuffer();
+        for (Map.Entry<String, String> entry : sortedSynonyms.entrySet()) {
+            ints.put(text.position()).put(entry.getKey().length());
+            text.put(entry.getKey());
+            ints.put(text.position()).put(entry.getValue().length());
+            text.put(entry.getValue());
+        }
+        for (String stopWord : sortedStops) {
+            ints.put(text.position()).put(stopWord.length());
+            text.put(stopWord);
+        }
+        text.put(trie.outputChars.toString());
+        buffer.clear();
+
+        try {
+            return new SynonymDictionary(buffer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 查询同义词
+     * @param word 词语
+     * @return 同义词，不存在时返回 null
+     */
+    public String lookup(CharSequence word) {
+        int index = search(entries, 4, entryCount, word);
+        if (index < 0) {
+            return null;
+        }
+        return text(entries.get(index * 4 + 2), entries.get(index * 4 + 3));
+    }
+
+    public boolean isStopWord(CharSequence word) {
+        return search(stops, 2, stopCount, word) >= 0;
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    // 分词用的字典树，布局见 DictionarySegmenter.Trie
+
+    LongBuffer trieEdgeKeys() {
+        return trieEdgeKeys.duplicate();
+    }
+
+    IntBuffer trieEdgeChildren() {
+        return trieEdgeChildren.duplicate();
+    }
+
+    IntBuffer trieNodeOutputs() {
+        return trieNodeOutputs.duplicate();
+    }
+
+    CharBuffer trieOutputChars() {
+        return trieOutputChars.duplicate();
+    }
+
+    /**
+     * 按字典序遍历所有同义词条
+     * @param action 接收 (词语, 同义词)
+     */
+    public void forEachSynonym(BiConsumer<String, String> action) {
+        for (int i = 0; i < entryCount; i++) {
+            action.accept(text(entries.get(i * 4), entries.get(i * 4 + 1)),
+                    text(entries.get(i * 4 + 2), entries.get(i * 4 + 3)));
+        }
+    }
+
+    /**
+     * 按字典序遍历所有停用词
+     * @param action 接收停用词
+     */
+    public void forEachStopWord(Consumer<String> action) {
+        for (int i = 0; i < stopCount; i++) {
+            action.accept(text(stops.get(i * 2), stops.get(i * 2 + 1)));
+        }
+    }
+
+    // 在按词排序的表中二分查找，直接比较缓冲区中的字符
+    private int search(IntBuffer table, int stride, int count, CharSequence word) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(table.get(mid * stride), table.get(mid * stride + 1), word);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compare(int offset, int length, CharSequence word) {
+        int common = Math.min(length, word.length());
+        for (int i = 0; i < common; i++) {
+            char a = chars.get(offset + i);
+            char b = word.charAt(i);
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return length - word.length();
+    }
+
+    private String text(int offset, int length) {
+        char[] value = new char[length];
+        for (int i = 0; i < length; i++) {
+            value[i] = chars.get(offset + i);
+        }
+        return new String(value);
+    }
+
+    private static Map<String, String> readSynonyms(Path file) throws IOException {
+        Map<String, String> synonyms = new LinkedHashMap<>();
+        for (String[] parts : readLines(file)) {
+            if (parts.length != 2) {
+                throw new IOException("同义词文件格式错误，每行应为: 词语 同义词，文件: " + file);
+            }
+            synonyms.put(parts[0], parts[1]);
+        }
+        return synonyms;
+    }
+
+    private static Set<String> readStopWords(Path file) throws IOException {
+        Set<String> stopWords = new TreeSet<>();
+        for (String[] parts : readLines(file)) {
+            Collections.addAll(stopWords, parts);
+        }
+        return stopWords;
+    }
+
+    private static List<String[]> readLines(Path file) throws IOException {
+        List<String[]> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                    lines.add(trimmed.split("\\s+"));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw new NoSuchFileException("文件不存在: " + file);
+        }
+        return lines;
+    }
+}
@@ -40,101 +40,282 @@ public class TextProcessor {
             '。', '！', '？', '；', '：', '，', '.', '!', '?', ';', ':'
     ));
 
-    // 停用词集合
+    // 单个句子的最大长度（字符数），超长的无标点文本按此长度切分为多个窗口，
+    // 避免整篇文本成为一个句子导致相似度计算的内存和时间失控
+    static final int MAX_SENTENCE_LENGTH = Integer.getInteger("plagiarism.maxSentenceLength", 1000);
+
+    // 内置停用词集合，实际使用的停用词取自共享词典（见 SynonymDictionary#shared()）
     private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
             "的", "了", "是", "在", "有", "和", "就", "都", "而", "及",
             "与", "也", "不", "很", "还", "又", "只", "这", "那", "我",
             "你", "他", "她", "它", "我们", "你们", "他们", "她们", "它们"
     ));
 
+    // 字符分类表：上面的集合在类加载时编译为按字符下标的标志位，逐字判断时无需装箱或创建字符串
+    private static final byte NOISE = 1;
+    private static final byte PUNCTUATION = 2;
+    private static final byte WHITESPACE = 4;
+    private static final byte[] CHAR_FLAGS = new byte[Character.MAX_VALUE + 1];
+    // 单字字符串缓存，按需填充
+    private static final String[] CHAR_STRINGS = new String[Character.MAX_VALUE + 1];
+
+    static {
+        for (char c : NOISE_CHARS) {
+            CHAR_FLAGS[c] |= NOISE;
+        }
+        for (char c : CHINESE_PUNCTUATION) {
+            CHAR_FLAGS[c] |= PUNCTUATION;
+        }
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (Character.isWhitespace((char) c)) {
+                CHAR_FLAGS[c] |= WHITESPACE;
+            }
+        }
+    }
+
     /**
      * 清洗文本：移除干扰字符、多余空格
      * @param text 原始文本
      * @return 清洗后的文本
      */
     public static String cleanText(String text) {
-        if (text == null || text.trim().isEmpty()) {
+        if (text == null) {
             return "";
         }
+        StageEvent event = PipelineMetrics.begin();
+        String cleaned = removeNoise(text);
+        PipelineMetrics.end(event, PipelineMetrics.Stage.CLEAN, text.length(), 0, 0, 0);
+        return cleaned;
+    }
 
-        StringBuilder cleaned = new StringBuilder();
-        for (char c : text.toCharArray()) {
+    /** 过滤干扰字符并合并连续空白，不记录阶段指标 */
+    private static String removeNoise(String text) {
+        int length = text.length();
+        StringBuilder cleaned = new StringBuilder(length);
+        boolean lastIsSpace = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            byte flags = CHAR_FLAGS[c];
             // 移除干扰字符
-            if (NOISE_CHARS.contains(c)) {
+            if ((flags & NOISE) != 0) {
                 continue;
             }
             // 替换多个空格为单个空格
-            if (Character.isWhitespace(c)) {
-                if (cleaned.length() > 0 && !Character.isWhitespace(cleaned.charAt(cleaned.length() - 1))) {
+            if ((flags & WHITESPACE) != 0) {
+                if (cleaned.length() > 0 && !lastIsSpace) {
                     cleaned.append(' ');
+                    lastIsSpace = true;
                 }
             } else {
                 cleaned.append(c);
+                lastIsSpace = false;
             }
         }
         return cleaned.toString().trim();
     }
 
     /**
-     * 将文本分割为句子
+     * 将文本分割为句子，超过最大长度的部分按窗口切分
      * @param text 清洗后的文本
      * @return 句子列表
      */
     public static List<String> splitIntoSentences(String text) {
+        return splitIntoSentences(text, MAX_SENTENCE_LENGTH);
+    }
+
+    /**
+     * 将文本分割为句子
+     * @param text 清洗后的文本
+     * @param maxSentenceLength 单个句子的最大字符数，不大于0表示不限制
+     * @return 句子列表
+     */
+    public static List<String> splitIntoSentences(String text, int maxSentenceLength) {
+        StageEvent event = PipelineMetrics.begin();
+        List<String> sentences = split(text, maxSentenceLength);
+        PipelineMetrics.end(event, PipelineMetrics.Stage.SPLIT, text.length(), sentences.size(), 0, 0);
+        return sentences;
+    }
+
+    /** 按标点和最大句长切分句子，不记录阶段指标 */
+    private static List<String> split(String text, int maxSentenceLength) {
         List<String> sentences = new ArrayList<>();
         if (text.isEmpty()) {
             return sentences;
         }
 
-        StringBuilder currentSentence = new StringBuilder();
-        for (char c : text.toCharArray()) {
-            currentSentence.append(c);
-            // 遇到标点符号则分割句子
-            if (CHINESE_PUNCTUATION.contains(c)) {
-                String sentence = currentSentence.toString().trim();
-                if (!sentence.isEmpty()) {
-                    sentences.add(sentence);
-                }
-                currentSentence.setLength(0);
+        // 直接在原文本上记录句子起点，只为每个句子截取一次子串
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            // 遇到标点符号或达到最大长度则分割句子
+            if ((CHAR_FLAGS[text.charAt(i)] & PUNCTUATION) != 0
+                    || (maxSentenceLength > 0 && i + 1 - start >= maxSentenceLength)) {
+                addTrimmed(sentences, text, start, i + 1);
+                start = i + 1;
             }
         }
 
         // 添加最后一个句子
-        String lastSentence = currentSentence.toString().trim();
-        if (!lastSentence.isEmpty()) {
-            sentences.add(lastSentence);
-        }
+        addTrimmed(sentences, text, start, length);
 
         return sentences;
     }
 
+    // 与 String.trim() 相同的规则去掉首尾空白，非空时加入句子列表
+    private static void addTrimmed(List<String> sentences, String text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start < end) {
+            sentences.add(text.substring(start, end));
+        }
+    }
+
     /**
-     * 句子分词（过滤停用词）
+     * 增量清洗和分句：逐个字符输入，输出的句子与
+     * {@code splitIntoSentences(cleanText(text), maxSentenceLength)} 完全一致，
+     * 只需保存当前未结束的句子，内存占用与文本长度无关。
+     */
+    static final class StreamingSplitter {
+        private final int maxSentenceLength;
+        private final StringBuilder current = new StringBuilder();
+        // 是否已输出过非空白字符（对应 cleanText 去掉开头的空白）
+        private boolean started;
+        private boolean lastIsSpace;
+
+        StreamingSplitter(int maxSentenceLength) {
+            this.maxSentenceLength = maxSentenceLength;
+        }
+
+        /**
+         * 输入一个字符
+         * @param c 原始文本中的下一个字符
+         * @return 由该字符结束的句子，没有句子结束（或结束的句子为空）时返回 null
+         */
+        String accept(char c) {
+            byte flags = CHAR_FLAGS[c];
+            if ((flags & NOISE) != 0) {
+                return null;
+            }
+            if ((flags & WHITESPACE) != 0) {
+                if (!started || lastIsSpace) {
+                    return null;
+                }
+                c = ' ';
+                lastIsSpace = true;
+            } else {
+                if (!started && c <= ' ') {
+                    return null;
+                }
+                started = true;
+                lastIsSpace = false;
+            }
+
+            current.append(c);
+            if ((CHAR_FLAGS[c] & PUNCTUATION) != 0
+                    || (maxSentenceLength > 0 && current.length() >= maxSentenceLength)) {
+                return takeSentence();
+            }
+            return null;
+        }
+
+        /**
+         * 输入结束
+         * @return 最后一个句子，为空时返回 null
+         */
+        String finish() {
+            return takeSentence();
+        }
+
+        private String takeSentence() {
+            // 与 addTrimmed 相同，去掉首尾的空白和控制字符
+            int start = 0;
+            int end = current.length();
+            while (start < end && current.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && current.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            String sentence = start < end ? current.substring(start, end) : null;
+            current.setLength(0);
+            return sentence;
+        }
+    }
+
+    /**
+     * 句子分词（过滤单字停用词，停用词取自共享词典）
      * @param sentence 句子
      * @return 词语列表
      */
     public static List<String> segmentSentence(String sentence) {
-        List<String> words = new ArrayList<>();
+        List<String> words = new ArrayList<>(sentence.length());
         if (sentence.isEmpty()) {
             return words;
         }
 
         // 简单中文分词（按字分词，适合短文本）
-        for (char c : sentence.toCharArray()) {
-            String word = String.valueOf(c);
-            if (!STOP_WORDS.contains(word) && !word.trim().isEmpty()) {
-                words.add(word);
+        for (int i = 0; i < sentence.length(); i++) {
+            char c = sentence.charAt(i);
+            // 空白字符（trim 会去掉的字符）和单字停用词不作为词语
+            if (c <= ' ' || StopChars.contains(c)) {
+                continue;
             }
+            String word = CHAR_STRINGS[c];
+            if (word == null) {
+                // 并发时可能重复创建，但内容相同
+                word = String.valueOf(c);
+                CHAR_STRINGS[c] = word;
+            }
+            words.add(word);
         }
 
         return words;
     }
 
+    // 单字停用词的位图，取自共享词典，与 DictionarySegmenter 使用同一份停用词；首次分词时才加载词典
+    private static final class StopChars {
+        private static final long[] BITS = new long[(Character.MAX_VALUE + 1) >>> 6];
+
+        static {
+            SynonymDictionary.shared().forEachStopWord(word -> {
+                if (word.length() == 1) {
+                    char c = word.charAt(0);
+                    BITS[c >>> 6] |= 1L << c;
+                }
+            });
+        }
+
+        static boolean contains(char c) {
+            return (BITS[c >>> 6] & (1L << c)) != 0;
+        }
+    }
+
     /**
-     * 获取同义词映射（针对示例中的同义词）
-     * @return 同义词映射表
+     * 获取内置停用词集合
+     * @return 不可修改的停用词集合
+     */
+    static Set<String> getStopWords() {
+        return Collections.unmodifiableSet(STOP_WORDS);
+    }
+
+    /**
+     * 获取内置同义词映射（针对示例中的同义词），只构建一次
+     * @return 不可修改的同义词映射表
      */
     public static Map<String, String> getSynonymMap() {
+        return BuiltinSynonyms.MAP;
+    }
+
+    // 首次使用时才构建内置同义词表
+    private static final class BuiltinSynonyms {
+        static final Map<String, String> MAP = Collections.unmodifiableMap(buildSynonymMap());
+    }
+
+    private static Map<String, String> buildSynonymMap() {
         Map<String, String> synonymMap = new HashMap<>();
         // 添加常见同义词对
         // 时间相关
@@ -0,0 +1,68 @@
+// TokenDictionary.java
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 词语字典：把标准化（同义词替换）之后的词语映射为稠密的整数编号，
+ * 使相似度计算的内层循环只比较 int，文档也只需保存 int[]。
+ * 全局共享一份，线程安全，编号一经分配不再改变。
+ */
+public final class TokenDictionary {
+    private static final TokenDictionary SHARED = new TokenDictionary();
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] tokens = new String[1024];
+    private int size;
+
+    private TokenDictionary() {
+    }
+
+    /**
+     * @return 全局共享的词语字典
+     */
+    public static TokenDictionary shared() {
+        return SHARED;
+    }
+
+    /**
+     * 获取词语的编号，不存在时分配新编号
+     * @param token 已标准化的词语
+     * @return 词语编号
+     */
+    public int idOf(String token) {
+        Integer id = ids.get(token);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(token);
+            if (id == null) {
+                if (size == tokens.length) {
+                    String[] grown = new String[tokens.length * 2];
+                    System.arraycopy(tokens, 0, grown, 0, size);
+                    tokens = grown;
+                }
+                tokens[size] = token;
+                id = size++;
+                ids.put(token, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * 根据编号取回词语
+     * @param id 词语编号
+     * @return 词语
+     */
+    public String tokenOf(int id) {
+        if (id < 0 || id >= size()) {
+            throw new IllegalArgumentException("无效的词语编号: " + id);
+        }
+        return tokens[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,128 @@
+// Winnowing.java
+import java.util.Arrays;
+
+/**
+ * MOSS 风格的 Winnowing 指纹算法。
+ *
+ * 对标准化后的词语流计算每个长度为 K 的词语片段（k-gram）的哈希，
+ * 在每个长度为 W 的窗口中选取最小哈希作为指纹。两篇文本只要共有一段
+ * 不短于 W + K - 1 个词语的内容，就一定共有至少一个指纹。
+ * 相似度取抄袭文本指纹集合被原文指纹集合包含的比例，整体时间与文本长度成线性关系，
+ * 适合作为入库时的快速初筛，可疑的文本对再交给 LCS 算法精确计算。
+ */
+final class Winnowing {
+    // k-gram 长度（词语数）
+    static final int K = 5;
+    // 窗口大小（k-gram 数）
+    static final int W = 4;
+
+    private Winnowing() {
+    }
+
+    /**
+     * 计算文档的指纹集合
+     * @param document 预处理文档
+     * @return 去重并升序排列的指纹
+     */
+    static long[] fingerprints(Document document) {
+        int total = 0;
+        for (int s = 0; s < document.sentenceCount(); s++) {
+            total += document.sentenceTokens(s).length;
+        }
+        int[] tokens = new int[total];
+        int offset = 0;
+        for (int s = 0; s < document.sentenceCount(); s++) {
+            int[] sentence = document.sentenceTokens(s);
+            System.arraycopy(sentence, 0, tokens, offset, sentence.length);
+            offset += sentence.length;
+        }
+        return fingerprints(tokens);
+    }
+
+    /**
+     * 计算词语流的指纹集合
+     * @param tokens 词语编号
+     * @return 去重并升序排列的指纹
+     */
+    static long[] fingerprints(int[] tokens) {
+        if (tokens.length == 0) {
+            return new long[0];
+        }
+        if (tokens.length < K) {
+            // 文本太短，整段作为一个片段
+            return new long[]{hash(tokens, 0, tokens.length)};
+        }
+
+        int gramCount = tokens.length - K + 1;
+        long[] hashes = new long[gramCount];
+        for (int i = 0; i < gramCount; i++) {
+            hashes[i] = hash(tokens, i, K);
+        }
+
+        long[] selected = new long[gramCount];
+        int size = 0;
+        int window = Math.min(W, gramCount);
+        int lastPosition = -1;
+        for (int start = 0; start + window <= gramCount; start++) {
+            // 窗口内取最小哈希，相同时取最右边的位置
+            int min = start;
+            for (int i = start + 1; i < start + window; i++) {
+                if (hashes[i] <= hashes[min]) {
+                    min = i;
+                }
+            }
+            if (min != lastPosition) {
+                selected[size++] = hashes[min];
+                lastPosition = min;
+            }
+        }
+
+        long[] result = Arrays.copyOf(selected, size);
+        Arrays.sort(result);
+        int unique = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) {
+                result[unique++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, unique);
+    }
+
+    /**
+     * 抄袭文本指纹被原文指纹包含的比例
+     * @param original 原文的指纹（升序）
+     * @param plagiarized 抄袭文本的指纹（升序）
+     * @return 包含度（0~1）
+     */
+    static double containment(long[] original, long[] plagiarized) {
+        if (original.length == 0 || plagiarized.length == 0) {
+            return 0.0;
+        }
+
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < original.length && j < plagiarized.length) {
+            if (original[i] < plagiarized[j]) {
+                i++;
+            } else if (original[i] > plagiarized[j]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        return (double) shared / plagiarized.length;
+    }
+
+    private static long hash(int[] tokens, int from, int length) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = from; i < from + length; i++) {
+            h = (h ^ tokens[i]) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,253 @@
+// PipelineBenchmark.java
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查重流程各阶段的 JMH 基准：清洗、分句、词典分词、LCS、词频相似度和端到端相似度。
+ *
+ * 语料由固定种子随机生成，按规模（字符数）和类型组合：
+ *   - normal：正常标点的中文文本；
+ *   - noisy：每 {@link #NOISE_INTERVAL} 个字符插入一个干扰字符；
+ *   - no-punctuation：没有任何标点，分句只能按最大句长切分窗口。
+ * 抄袭文本由原文逐句改写得到：部分字替换为其他常用字或同义词，部分句子换成无关句子。
+ *
+ * 同时统计吞吐量和平均耗时，并通过 GC 分析器报告分配速率（gc.alloc.rate.norm 为每次操作分配的字节数）。
+ * 运行方式（在项目目录下，主程序源码在构建时复制进来一起编译）：
+ *   mvn -f jmh/pom.xml package
+ *   java -jar jmh/target/benchmarks.jar -prof gc [基准名称正则]
+ *
+ * JMH 不支持默认包中的基准类，而主程序都在默认包中，无法直接引用，
+ * 因此通过方法句柄调用被测方法。句柄保存在 static final 字段中，JIT 会把它当作常量内联，
+ * 调用开销可以忽略。
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+    // noisy 语料中干扰字符的间隔
+    static final int NOISE_INTERVAL = 8;
+    private static final String COMMON_CHARS =
+            "今天是星期天气晴晚上我要去看电影学生作业老师检查文章内容相似程度计算方法结果分析数据处理"
+            + "系统设计实现测试性能优化问题解决提出研究发现重要意义社会经济发展历史文化教育科学技术";
+    private static final char[] NOISE_CHARS = {'丽', '医', '腥', '碉', '龘', '靐', '鱻', '麤'};
+    private static final char[] PUNCTUATION = {'，', '，', '。', '！', '？', '；'};
+    private static final String[][] SYNONYMS = {{"土豆", "马铃薯"}, {"迅速", "快速"}, {"电脑", "计算机"}};
+
+    private static final MethodHandle CLEAN_TEXT = handle("TextProcessor", "cleanText", String.class);
+    private static final MethodHandle SPLIT_INTO_SENTENCES = handle("TextProcessor", "splitIntoSentences", String.class);
+    // 已绑定共享分词器：(CharSequence) -> int[]
+    private static final MethodHandle SEGMENT = segmentHandle();
+    private static final MethodHandle CALCULATE_LCS_LENGTH =
+            handle("SimilarityCalculator", "calculateLCSLength", int[].class, int[].class);
+    private static final MethodHandle CALCULATE_WORD_FREQUENCY_SIMILARITY =
+            handle("SimilarityCalculator", "calculateWordFrequencySimilarity", String.class, String.class);
+    private static final MethodHandle CALCULATE_SIMILARITY =
+            handle("SimilarityCalculator", "calculateSimilarity", String.class, String.class);
+
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    @Param({"normal", "noisy", "no-punctuation"})
+    String corpus;
+
+    String originalText;
+    String plagiarizedText;
+    String cleanedText;
+    String cleanedPlagiarizedText;
+    List<String> sentences;
+    int[][] originalTokens;
+    int[][] plagiarizedTokens;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        Random random = new Random(20240917L + size * 31L + corpus.hashCode());
+        originalText = generate(random, size, corpus);
+        plagiarizedText = rewrite(random, originalText);
+        cleanedText = (String) CLEAN_TEXT.invokeExact(originalText);
+        cleanedPlagiarizedText = (String) CLEAN_TEXT.invokeExact(plagiarizedText);
+        sentences = (List<String>) SPLIT_INTO_SENTENCES.invokeExact(cleanedText);
+
+        List<String> plagiarizedSentences = (List<String>) SPLIT_INTO_SENTENCES.invokeExact(cleanedPlagiarizedText);
+        int pairs = Math.min(sentences.size(), plagiarizedSentences.size());
+        originalTokens = new int[pairs][];
+        plagiarizedTokens = new int[pairs][];
+        for (int i = 0; i < pairs; i++) {
+            originalTokens[i] = (int[]) SEGMENT.invokeExact((CharSequence) sentences.get(i));
+            plagiarizedTokens[i] = (int[]) SEGMENT.invokeExact((CharSequence) plagiarizedSentences.get(i));
+        }
+    }
+
+    /**
+     * 查找默认包中类的静态方法（可以是包内可见的）
+     * @param className 类名
+     * @param name 方法名
+     * @param parameterTypes 参数类型
+     * @return 方法句柄
+     */
+    static MethodHandle handle(String className, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = Class.forName(className).getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("找不到被测方法: " + className + "." + name, e);
+        }
+    }
+
+    /**
+     * @return 绑定到 DictionarySegmenter.shared() 的 segment(CharSequence) 方法句柄
+     */
+    private static MethodHandle segmentHandle() {
+        try {
+            Class<?> segmenter = Class.forName("DictionarySegmenter");
+            Method segment = segmenter.getDeclaredMethod("segment", CharSequence.class);
+            segment.setAccessible(true);
+            Object shared = handle("DictionarySegmenter", "shared").invoke();
+            return MethodHandles.lookup().unreflect(segment).bindTo(shared);
+        } catch (Throwable e) {
+            throw new IllegalStateException("找不到被测方法: DictionarySegmenter.segment", e);
+        }
+    }
+
+    /**
+     * 生成指定规模和类型的语料
+     * @param random 随机数
+     * @param size 字符数
+     * @param corpus 语料类型
+     * @return 语料文本
+     */
+    static String generate(Random random, int size, String corpus) {
+        boolean punctuated = !"no-punctuation".equals(corpus);
+        boolean noisy = "noisy".equals(corpus);
+        StringBuilder builder = new StringBuilder(size + 32);
+        int sentenceLength = 0;
+        int target = 8 + random.nextInt(24);
+        while (builder.length() < size) {
+            if (noisy && builder.length() % NOISE_INTERVAL == NOISE_INTERVAL - 1) {
+                builder.append(NOISE_CHARS[random.nextInt(NOISE_CHARS.length)]);
+            } else if (random.nextInt(40) == 0) {
+                String[] synonym = SYNONYMS[random.nextInt(SYNONYMS.length)];
+                builder.append(synonym[random.nextInt(2)]);
+                sentenceLength += 2;
+            } else {
+                builder.append(COMMON_CHARS.charAt(random.nextInt(COMMON_CHARS.length())));
+                sentenceLength++;
+            }
+            if (punctuated && sentenceLength >= target) {
+                builder.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+                sentenceLength = 0;
+                target = 8 + random.nextInt(24);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 改写原文得到抄袭文本：约 10% 的字替换为其他常用字，同义词换成另一种说法，约 20% 的句子换成无关句子
+     */
+    static String rewrite(Random random, String original) {
+        StringBuilder builder = new StringBuilder(original.length());
+        boolean replaceSentence = false;
+        for (int i = 0; i < original.length(); i++) {
+            char c = original.charAt(i);
+            boolean punctuation = false;
+            for (char p : PUNCTUATION) {
+                punctuation |= c == p;
+            }
+            if (punctuation) {
+                builder.append(c);
+                replaceSentence = random.nextInt(5) == 0;
+                continue;
+            }
+            if (replaceSentence || random.nextInt(10) == 0) {
+                builder.append(COMMON_CHARS.charAt(random.nextInt(COMMON_CHARS.length())));
+            } else {
+                builder.append(c);
+            }
+        }
+        String text = builder.toString();
+        for (String[] synonym : SYNONYMS) {
+            text = text.replace(synonym[0], synonym[1]);
+        }
+        return text;
+    }
+
+    @Benchmark
+    public String cleanText() throws Throwable {
+        return (String) CLEAN_TEXT.invokeExact(originalText);
+    }
+
+    @Benchmark
+    public List<String> splitIntoSentences() throws Throwable {
+        return (List<String>) SPLIT_INTO_SENTENCES.invokeExact(cleanedText);
+    }
+
+    @Benchmark
+    public void segment(Blackhole blackhole) throws Throwable {
+        for (String sentence : sentences) {
+            blackhole.consume((int[]) SEGMENT.invokeExact((CharSequence) sentence));
+        }
+    }
+
+    // 对应位置的原文句和抄袭句逐对计算 LCS
+    @Benchmark
+    public long calculateLCSLength() throws Throwable {
+        long total = 0;
+        for (int i = 0; i < originalTokens.length; i++) {
+            total += (int) CALCULATE_LCS_LENGTH.invokeExact(originalTokens[i], plagiarizedTokens[i]);
+        }
+        return total;
+    }
+
+    // 与查重流程一致，词频相似度的输入是清洗后的文本
+    @Benchmark
+    public double calculateWordFrequencySimilarity() throws Throwable {
+        return (double) CALCULATE_WORD_FREQUENCY_SIMILARITY.invokeExact(cleanedText, cleanedPlagiarizedText);
+    }
+
+    @Benchmark
+    public double calculateSimilarity() throws Throwable {
+        return (double) CALCULATE_SIMILARITY.invokeExact(originalText, plagiarizedText);
+    }
+
+    /**
+     * 运行全部基准（或名称匹配参数中正则的基准），附带 GC 分析器
+     * @param args 可选的基准名称正则
+     * @throws RunnerException 运行失败时抛出异常
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PipelineBenchmark.class.getSimpleName() + "." + (args.length > 0 ? args[0] : ""))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}